@@ -3,10 +3,12 @@ package de.codingair.tradesystem.proxy.packets;
 import de.codingair.packetmanagement.packets.RequestPacket;
 import de.codingair.packetmanagement.packets.ResponsePacket;
 import de.codingair.packetmanagement.utils.ByteMask;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.UUID;
 
 /**
  * Packet to respond to an open invitation of a player on another server.
@@ -83,6 +85,7 @@ public class InviteResponsePacket implements RequestPacket<InviteResponsePacket.
 
     public static class ResultPacket implements ResponsePacket {
         private Result result;
+        private @Nullable UUID tradeId;
 
         public ResultPacket() {
         }
@@ -91,18 +94,41 @@ public class InviteResponsePacket implements RequestPacket<InviteResponsePacket.
             this.result = result;
         }
 
+        /**
+         * @param result  The result.
+         * @param tradeId The id of the started trade which is shared by both servers.
+         */
+        public ResultPacket(Result result, @Nullable UUID tradeId) {
+            this.result = result;
+            this.tradeId = tradeId;
+        }
+
         @Override
         public void write(DataOutputStream out) throws IOException {
             out.writeByte(result.ordinal());
+
+            out.writeBoolean(this.tradeId != null);
+            if (this.tradeId != null) {
+                out.writeLong(this.tradeId.getMostSignificantBits());
+                out.writeLong(this.tradeId.getLeastSignificantBits());
+            }
         }
 
         @Override
         public void read(DataInputStream in) throws IOException {
             result = Result.values()[in.readByte()];
+            if (in.readBoolean()) this.tradeId = new UUID(in.readLong(), in.readLong());
         }
 
         public Result getResult() {
             return result;
         }
+
+        /**
+         * @return The id of the started trade. Null if no trade was started.
+         */
+        public @Nullable UUID getTradeId() {
+            return tradeId;
+        }
     }
 }
@@ -1,27 +1,119 @@
 package de.codingair.tradesystem.proxy.packets;
 
 import de.codingair.packetmanagement.packets.Packet;
-import de.codingair.packetmanagement.utils.SerializedGeneric;
+import de.codingair.tradesystem.proxy.packets.utils.SerializedItem;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Synchronizes the inventory of a trading player with the server of the trade partner. Each packet carries all slots which were changed since
+ * the base version, which is the last version that was sent to the receiver. The receiver only applies a delta whose base is the version it holds
+ * and otherwise requests a full snapshot with a packet of the type {@link Type#RESYNC}. Applied versions are not acknowledged.
+ * <p>
+ * Updates which are too big for a single plugin message will be {@link #split(int) split} into parts of the same version. The receiver must
+ * apply a version after receiving the {@link #isLast() last} part.
+ */
 public class PlayerInventoryPacket implements Packet {
     private String sender, recipient;
-    private SerializedGeneric item;
-    private int slot;
+    private Type type;
+    private int version;
+    private int base;
+    private boolean last = true;
+    private final Map<Integer, SerializedItem> items = new LinkedHashMap<>();
 
     public PlayerInventoryPacket() {
     }
 
-    public PlayerInventoryPacket(String sender, String recipient, @Nullable Map<String, Object> item, int slot) throws IOException {
+    private PlayerInventoryPacket(@NotNull String sender, @NotNull String recipient, @NotNull Type type, int version, int base) {
         this.sender = sender;
         this.recipient = recipient;
-        this.item = item == null ? null : new SerializedGeneric(item);
-        this.slot = slot;
+        this.type = type;
+        this.version = version;
+        this.base = base;
+    }
+
+    /**
+     * @param sender    The name of the trading player whose inventory will be sent.
+     * @param recipient The name of the trade partner.
+     * @param version   The new version of the inventory.
+     * @param base      The last sent version the changes are based on. 0 for a full snapshot.
+     * @return A packet which can be filled with {@link #setItem(int, Map)}.
+     */
+    @NotNull
+    public static PlayerInventoryPacket update(@NotNull String sender, @NotNull String recipient, int version, int base) {
+        return new PlayerInventoryPacket(sender, recipient, base == 0 ? Type.SNAPSHOT : Type.DELTA, version, base);
+    }
+
+    /**
+     * @param sender    The name of the trade partner who received the inventory.
+     * @param recipient The name of the trading player whose inventory was received.
+     * @param version   The version which has been applied last.
+     * @return A packet which requests a full snapshot.
+     */
+    @NotNull
+    public static PlayerInventoryPacket resync(@NotNull String sender, @NotNull String recipient, int version) {
+        return new PlayerInventoryPacket(sender, recipient, Type.RESYNC, version, 0);
+    }
+
+    /**
+     * @param slot The inventory slot.
+     * @param item The serialized item. Null, if the slot is empty.
+     */
+    public void setItem(int slot, @Nullable Map<String, Object> item) throws IOException {
+        this.items.put(slot, item == null ? null : new SerializedItem(item));
+    }
+
+    /**
+     * @param maxSize The maximum size of a part in bytes.
+     * @return This packet if it is small enough or all parts in the order they must be sent. Items which are too big will be split into fragments.
+     */
+    @NotNull
+    public List<PlayerInventoryPacket> split(int maxSize) {
+        // sender, recipient, type, version, base, last and count
+        int header = 4 + 2 * 64 + 1 + 4 + 4 + 1 + 1;
+        int size = header;
+        for (SerializedItem item : this.items.values()) size += 2 + (item == null ? 0 : item.getSize());
+
+        List<PlayerInventoryPacket> parts = new ArrayList<>();
+        if (size <= maxSize) {
+            parts.add(this);
+            return parts;
+        }
+
+        PlayerInventoryPacket part = new PlayerInventoryPacket(sender, recipient, type, version, base);
+        size = header;
+
+        for (Map.Entry<Integer, SerializedItem> e : this.items.entrySet()) {
+            List<SerializedItem> fragments = e.getValue() == null ? null : e.getValue().split(maxSize - header - 2);
+
+            for (int i = 0; i < (fragments == null ? 1 : fragments.size()); i++) {
+                SerializedItem item = fragments == null ? null : fragments.get(i);
+                int itemSize = 2 + (item == null ? 0 : item.getSize());
+
+                if (size + itemSize > maxSize || part.items.size() == 255) {
+                    part.last = false;
+                    parts.add(part);
+
+                    part = new PlayerInventoryPacket(sender, recipient, type, version, base);
+                    size = header;
+                }
+
+                // fragments of the same slot are sent in different parts, so the keys do not collide
+                part.items.put(e.getKey(), item);
+                size += itemSize;
+            }
+        }
+
+        parts.add(part);
+        return parts;
     }
 
     @Override
@@ -29,9 +121,17 @@ public class PlayerInventoryPacket implements Packet {
         out.writeUTF(this.sender);
         out.writeUTF(this.recipient);
 
-        out.writeByte(this.slot);
-        out.writeBoolean(item != null);
-        if (item != null) item.write(out);
+        out.writeByte(this.type.ordinal());
+        out.writeInt(this.version);
+        out.writeInt(this.base);
+        out.writeBoolean(this.last);
+
+        out.writeByte(this.items.size());
+        for (Map.Entry<Integer, SerializedItem> e : this.items.entrySet()) {
+            out.writeByte(e.getKey());
+            out.writeBoolean(e.getValue() != null);
+            if (e.getValue() != null) e.getValue().write(out);
+        }
     }
 
     @Override
@@ -39,12 +139,22 @@ public class PlayerInventoryPacket implements Packet {
         this.sender = in.readUTF();
         this.recipient = in.readUTF();
 
-        this.slot = in.readUnsignedByte();
-        boolean notNull = in.readBoolean();
+        this.type = Type.values()[in.readUnsignedByte()];
+        this.version = in.readInt();
+        this.base = in.readInt();
+        this.last = in.readBoolean();
+
+        int size = in.readUnsignedByte();
+        for (int i = 0; i < size; i++) {
+            int slot = in.readUnsignedByte();
+            SerializedItem item = null;
+
+            if (in.readBoolean()) {
+                item = new SerializedItem();
+                item.read(in);
+            }
 
-        if (notNull) {
-            this.item = new SerializedGeneric();
-            item.read(in);
+            this.items.put(slot, item);
         }
     }
 
@@ -56,16 +166,68 @@ public class PlayerInventoryPacket implements Packet {
         return recipient;
     }
 
-    @Nullable
-    public Map<String, Object> getItem() throws IOException {
-        try {
-            return item == null ? null : item.getObject();
-        } catch (Exception e) {
-            throw new RuntimeException(String.format("Error while reading item in slot %d. Please forward this error including the information about the traded item of %s to %s.", slot, sender, recipient), e);
+    @NotNull
+    public Type getType() {
+        return type;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getBase() {
+        return base;
+    }
+
+    /**
+     * @return False, if more parts of this version will follow.
+     */
+    public boolean isLast() {
+        return last;
+    }
+
+    /**
+     * @return All changed slots in the order in which they were added. Items may be fragments which must be joined with an ItemAssembler.
+     */
+    @NotNull
+    public Map<Integer, SerializedItem> getSerializedItems() {
+        return items;
+    }
+
+    /**
+     * @return All changed slots. The order matches the order in which the slots were added.
+     */
+    @NotNull
+    public Map<Integer, Map<String, Object>> getItems() {
+        Map<Integer, Map<String, Object>> items = new LinkedHashMap<>();
+
+        for (Map.Entry<Integer, SerializedItem> e : this.items.entrySet()) {
+            try {
+                items.put(e.getKey(), e.getValue() == null ? null : e.getValue().getObject());
+            } catch (Exception ex) {
+                throw new RuntimeException(String.format("Error while reading item in slot %d. Please forward this error including the information about the traded item of %s to %s.", e.getKey(), sender, recipient), ex);
+            }
         }
+
+        return items;
     }
 
-    public int getSlot() {
-        return slot;
+    public enum Type {
+        /**
+         * Contains all slots of the inventory.
+         */
+        SNAPSHOT,
+        /**
+         * Contains all slots which were changed since the base version.
+         */
+        DELTA,
+        /**
+         * Confirms that the receiver applied the version. Not sent anymore; kept for compatibility with older versions.
+         */
+        ACKNOWLEDGEMENT,
+        /**
+         * Informs the sender that the receiver misses the base version and needs a full snapshot.
+         */
+        RESYNC
     }
 }
@@ -8,6 +8,7 @@ import org.jetbrains.annotations.Nullable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.UUID;
 
 /**
  * Packet to invite a player on another server.
@@ -71,6 +72,7 @@ public class TradeInvitePacket implements RequestPacket<TradeInvitePacket.Result
     public static class ResultPacket implements ResponsePacket {
         private Result result;
         private @Nullable String server;
+        private @Nullable UUID tradeId;
 
         public ResultPacket() {
         }
@@ -84,15 +86,29 @@ public class TradeInvitePacket implements RequestPacket<TradeInvitePacket.Result
             this.server = server;
         }
 
+        /**
+         * @param result  The result.
+         * @param tradeId The id of the started trade which is shared by both servers.
+         */
+        public ResultPacket(Result result, @Nullable UUID tradeId) {
+            this.result = result;
+            this.tradeId = tradeId;
+        }
+
         @Override
         public void write(DataOutputStream out) throws IOException {
             ByteMask mask = new ByteMask((byte) result.ordinal());
 
             //use negation bit for server indication
             mask.setBit(7, this.server != null);
+            mask.setBit(6, this.tradeId != null);
             mask.write(out);
 
             if (this.server != null) out.writeUTF(this.server);
+            if (this.tradeId != null) {
+                out.writeLong(this.tradeId.getMostSignificantBits());
+                out.writeLong(this.tradeId.getLeastSignificantBits());
+            }
         }
 
         @Override
@@ -101,10 +117,13 @@ public class TradeInvitePacket implements RequestPacket<TradeInvitePacket.Result
             mask.read(in);
 
             boolean hasServer = mask.getBit(7);
+            boolean hasTradeId = mask.getBit(6);
             mask.setBit(7, false);
+            mask.setBit(6, false);
 
             result = Result.values()[mask.getByte()];
             if (hasServer) this.server = in.readUTF();
+            if (hasTradeId) this.tradeId = new UUID(in.readLong(), in.readLong());
         }
 
         public Result getResult() {
@@ -114,5 +133,12 @@ public class TradeInvitePacket implements RequestPacket<TradeInvitePacket.Result
         public @Nullable String getServer() {
             return server;
         }
+
+        /**
+         * @return The id of the started trade. Null if no trade was started.
+         */
+        public @Nullable UUID getTradeId() {
+            return tradeId;
+        }
     }
 }
@@ -1,18 +1,20 @@
 package de.codingair.tradesystem.proxy.packets;
 
 import de.codingair.packetmanagement.packets.Packet;
-import de.codingair.packetmanagement.utils.SerializedGeneric;
+import de.codingair.tradesystem.proxy.packets.utils.SerializedItem;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class TradeItemUpdatePacket implements Packet {
     private String sender, recipient;
-    private SerializedGeneric item;
+    private SerializedItem item;
     private int slotId; //own slotId
 
     public TradeItemUpdatePacket() {
@@ -21,10 +23,37 @@ public class TradeItemUpdatePacket implements Packet {
     public TradeItemUpdatePacket(@NotNull String sender, @NotNull String recipient, @Nullable Map<String, Object> item, byte slotId) throws IOException {
         this.sender = sender;
         this.recipient = recipient;
-        this.item = item == null ? null : new SerializedGeneric(item);
+        this.item = item == null ? null : new SerializedItem(item);
         this.slotId = slotId;
     }
 
+    private TradeItemUpdatePacket(@NotNull String sender, @NotNull String recipient, @Nullable SerializedItem item, int slotId) {
+        this.sender = sender;
+        this.recipient = recipient;
+        this.item = item;
+        this.slotId = slotId;
+    }
+
+    /**
+     * @param maxSize The maximum size of a packet in bytes.
+     * @return This packet if it is small enough or a packet for each fragment of the item in the order they must be sent.
+     */
+    @NotNull
+    public List<TradeItemUpdatePacket> split(int maxSize) {
+        List<TradeItemUpdatePacket> packets = new ArrayList<>();
+
+        if (this.item == null) packets.add(this);
+        else {
+            // sender, recipient, null flag and slot id
+            int header = 4 + 2 * 64 + 1 + 1;
+            for (SerializedItem fragment : this.item.split(maxSize - header)) {
+                packets.add(fragment == this.item ? this : new TradeItemUpdatePacket(sender, recipient, fragment, slotId));
+            }
+        }
+
+        return packets;
+    }
+
     @Override
     public void write(DataOutputStream out) throws IOException {
         out.writeUTF(this.sender);
@@ -43,7 +72,7 @@ public class TradeItemUpdatePacket implements Packet {
 
         boolean notNull = in.readBoolean();
         if (notNull) {
-            this.item = new SerializedGeneric();
+            this.item = new SerializedItem();
             item.read(in);
         }
 
@@ -60,6 +89,14 @@ public class TradeItemUpdatePacket implements Packet {
         return recipient;
     }
 
+    /**
+     * @return The item of this packet. Might be a fragment which must be joined with an ItemAssembler.
+     */
+    @Nullable
+    public SerializedItem getSerializedItem() {
+        return item;
+    }
+
     @Nullable
     public Map<String, Object> getItem() throws IOException {
         try {
@@ -0,0 +1,60 @@
+package de.codingair.tradesystem.proxy.packets.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects the fragments of {@link SerializedItem}s which were {@link SerializedItem#split(int) split} by the sender. Fragments of the same item
+ * must be received in order. A new first fragment of a key drops all fragments of an unfinished item.
+ */
+public class ItemAssembler {
+    private final Map<Object, SerializedItem[]> pending = new HashMap<>();
+
+    /**
+     * @param key      The key of the item, e.g. its slot.
+     * @param fragment A fragment of the item.
+     * @return The joined item if the fragment was the last one. Null, if the item is incomplete.
+     */
+    @Nullable
+    public SerializedItem offer(@NotNull Object key, @NotNull SerializedItem fragment) {
+        if (!fragment.isFragment()) {
+            pending.remove(key);
+            return fragment;
+        }
+
+        SerializedItem[] fragments = pending.get(key);
+        if (fragment.getFragment() == 0 || fragments == null || fragments.length != fragment.getFragments()) {
+            if (fragment.getFragment() != 0) {
+                // we missed the beginning of this item
+                pending.remove(key);
+                return null;
+            }
+
+            fragments = new SerializedItem[fragment.getFragments()];
+            pending.put(key, fragments);
+        }
+
+        int index = fragment.getFragment();
+        if (index > 0 && fragments[index - 1] == null) {
+            // out of order
+            pending.remove(key);
+            return null;
+        }
+
+        fragments[index] = fragment;
+        if (index < fragments.length - 1) return null;
+
+        pending.remove(key);
+        return SerializedItem.join(fragments);
+    }
+
+    /**
+     * Drops all unfinished items.
+     */
+    public void clear() {
+        pending.clear();
+    }
+}
@@ -0,0 +1,103 @@
+package de.codingair.tradesystem.proxy.packets.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges several packet frames into one plugin message. Bundles are sent on their own {@link #getChannel(String) channel}, so receivers which
+ * do not support bundles will ignore them instead of reading a broken frame.
+ * <p>
+ * Format: the amount of frames followed by the length and the bytes of each frame.
+ */
+public class PacketBundle {
+    private static final String SUFFIX = "_bundle";
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final List<byte[]> frames = new ArrayList<>();
+    private int size = 2;
+
+    /**
+     * @param channel The channel of single frames.
+     * @return The channel of bundles.
+     */
+    @NotNull
+    public static String getChannel(@NotNull String channel) {
+        return channel + SUFFIX;
+    }
+
+    /**
+     * @param frame   The frame to add.
+     * @param maxSize The maximum size of the bundle in bytes.
+     * @return False, if the frame does not fit into this bundle.
+     */
+    public boolean add(@NotNull byte[] frame, int maxSize) {
+        if (this.frames.size() == Short.MAX_VALUE) return false;
+
+        int size = this.size + 4 + frame.length;
+        if (size > maxSize) return false;
+
+        this.frames.add(frame);
+        this.size = size;
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return frames.isEmpty();
+    }
+
+    /**
+     * @return All frames of this bundle in the order they were added.
+     */
+    @NotNull
+    public List<byte[]> getFrames() {
+        return frames;
+    }
+
+    @NotNull
+    public byte[] toByteArray() {
+        try {
+            bytes.reset();
+            out.writeShort(frames.size());
+
+            for (byte[] frame : frames) {
+                out.writeInt(frame.length);
+                out.write(frame);
+            }
+
+            out.flush();
+        } catch (IOException e) {
+            // cannot happen with a ByteArrayOutputStream
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param bundle The bytes of a bundle.
+     * @return All frames of the bundle in the order they were added.
+     * @throws IOException If the bundle is malformed.
+     */
+    @NotNull
+    public static List<byte[]> read(@NotNull byte[] bundle) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bundle));
+
+        int count = in.readUnsignedShort();
+        List<byte[]> frames = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int length = in.readInt();
+            if (length < 0 || length > in.available()) throw new IOException("Invalid frame length: " + length);
+
+            byte[] frame = new byte[length];
+            in.readFully(frame);
+            frames.add(frame);
+        }
+
+        return frames;
+    }
+}
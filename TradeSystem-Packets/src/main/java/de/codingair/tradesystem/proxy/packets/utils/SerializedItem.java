@@ -0,0 +1,586 @@
+package de.codingair.tradesystem.proxy.packets.utils;
+
+import de.codingair.packetmanagement.utils.SerializedGeneric;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Writes serialized items in a compact binary format. Values keep their exact Java type, so the receiver can pass the decoded map to the
+ * ConfigurationSerialization of Bukkit as before. Repeated strings like map keys, material names and serialization aliases are written only once
+ * per item and the most common ones are part of the format. Items which contain values that cannot be encoded will be written as
+ * {@link SerializedGeneric}.
+ * <p>
+ * Payloads above the {@link #setCompression(int, int) compression threshold} will be deflated. Payloads which are still too big for a single
+ * plugin message can be {@link #split(int) split} into fragments which are joined by an {@link ItemAssembler} on the receiving side.
+ */
+public class SerializedItem {
+    private static final int ENCODING_MASK = 0x0F;
+    private static final int LEGACY = 0;
+    private static final int COMPACT_V1 = 1;
+
+    private static final int DEFLATED = 0x10;
+    private static final int FRAGMENT = 0x20;
+
+    private static final int MAX_LENGTH = 1 << 24;
+
+    /**
+     * Strings which are known by both sides of the {@link #COMPACT_V1} format. Must not be changed without a new format version.
+     */
+    private static final String[] DICTIONARY = {
+            "v", "type", "amount", "damage", "meta", "==", "ItemMeta", "meta-type", "UNSPECIFIC", "display-name", "lore", "enchants", "Damage",
+            "repair-cost", "ItemFlags", "Unbreakable", "custom-model-data", "custom-effects", "PotionEffect", "effect", "duration", "amplifier",
+            "ambient", "has-particles", "has-icon", "color", "custom-color", "Color", "RED", "GREEN", "BLUE", "attribute-modifiers",
+            "org.bukkit.attribute.AttributeModifier", "uuid", "name", "operation", "slot", "stored-enchants", "ENCHANTED", "BOOK_SIGNED", "BOOK",
+            "title", "author", "pages", "generation", "POTION", "potion-type", "LEATHER_ARMOR", "SKULL", "skull-owner", "BLOCK_STATE",
+            "internal", "PublicBukkitValues", "TILE_ENTITY", "FIREWORK", "firework-effects", "power", "BANNER", "patterns", "base-color"
+    };
+
+    private static volatile int compressionThreshold = 256;
+    private static volatile int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    private static final AtomicLong COMPACT_ITEMS = new AtomicLong();
+    private static final AtomicLong LEGACY_ITEMS = new AtomicLong();
+    private static final AtomicLong COMPACT_BYTES = new AtomicLong();
+    private static final AtomicLong COMPRESSED_ITEMS = new AtomicLong();
+    private static final AtomicLong UNCOMPRESSED_BYTES = new AtomicLong();
+    private static final AtomicLong COMPRESSED_BYTES = new AtomicLong();
+    private static final AtomicLong SPLIT_ITEMS = new AtomicLong();
+    private static final AtomicLong FRAGMENTS = new AtomicLong();
+
+    private int header;
+    private int fragment;
+    private int fragments;
+    private byte[] data;
+
+    public SerializedItem() {
+    }
+
+    private SerializedItem(int header, int fragment, int fragments, @NotNull byte[] data) {
+        this.header = header;
+        this.fragment = fragment;
+        this.fragments = fragments;
+        this.data = data;
+    }
+
+    /**
+     * @param item The serialized item.
+     * @throws IOException If the item can neither be encoded in the compact format nor as {@link SerializedGeneric}.
+     */
+    public SerializedItem(@NotNull Map<String, Object> item) throws IOException {
+        this(item, true);
+    }
+
+    private SerializedItem(@NotNull Map<String, Object> item, boolean statistics) throws IOException {
+        byte[] data;
+        try {
+            data = encode(item);
+            this.header = COMPACT_V1;
+
+            if (statistics) {
+                COMPACT_ITEMS.incrementAndGet();
+                COMPACT_BYTES.addAndGet(data.length);
+            }
+        } catch (UnsupportedValueException e) {
+            data = encodeLegacy(item);
+            this.header = LEGACY;
+
+            if (statistics) LEGACY_ITEMS.incrementAndGet();
+        }
+
+        if (data.length >= compressionThreshold) {
+            byte[] compressed = deflate(data, statistics);
+
+            if (compressed.length < data.length) {
+                this.header |= DEFLATED;
+                data = compressed;
+
+                if (statistics) COMPRESSED_ITEMS.incrementAndGet();
+            }
+        }
+
+        this.data = data;
+    }
+
+    /**
+     * Encodes an item which will not be sent to the proxy, e.g. for the trade log. Unlike the constructor, this does not affect the proxy statistics.
+     *
+     * @param item The serialized item.
+     * @return The encoded item.
+     * @throws IOException If the item can neither be encoded in the compact format nor as {@link SerializedGeneric}.
+     */
+    @NotNull
+    public static SerializedItem forStorage(@NotNull Map<String, Object> item) throws IOException {
+        return new SerializedItem(item, false);
+    }
+
+    /**
+     * Changes the compression of all items which will be created afterwards.
+     *
+     * @param threshold The minimum size of a payload in bytes which will be compressed. Use a negative value to disable the compression.
+     * @param level     The deflate level from 0 to 9 or -1 for the default level.
+     */
+    public static void setCompression(int threshold, int level) {
+        compressionThreshold = threshold < 0 ? Integer.MAX_VALUE : threshold;
+        compressionLevel = level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION ? Deflater.DEFAULT_COMPRESSION : level;
+    }
+
+    /**
+     * Splits this item into fragments which will not exceed the given size on the wire.
+     *
+     * @param maxSize The maximum size of a fragment in bytes.
+     * @return This item if it is small enough or a list of fragments in the order they must be sent.
+     */
+    @NotNull
+    public List<SerializedItem> split(int maxSize) {
+        if (isFragment()) throw new IllegalStateException("A fragment cannot be split.");
+        if (getSize() <= maxSize) return Collections.singletonList(this);
+
+        // header, fragment index, fragment count and length
+        int chunk = Math.max(1, maxSize - 16);
+        int count = (this.data.length + chunk - 1) / chunk;
+
+        List<SerializedItem> fragments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = i * chunk;
+            fragments.add(new SerializedItem(this.header | FRAGMENT, i, count, Arrays.copyOfRange(this.data, from, Math.min(this.data.length, from + chunk))));
+        }
+
+        SPLIT_ITEMS.incrementAndGet();
+        FRAGMENTS.addAndGet(count);
+        return fragments;
+    }
+
+    /**
+     * @param fragments All fragments of an item in the order of their index.
+     * @return The joined item.
+     */
+    @NotNull
+    static SerializedItem join(@NotNull SerializedItem[] fragments) {
+        int length = 0;
+        for (SerializedItem fragment : fragments) length += fragment.data.length;
+
+        byte[] data = new byte[length];
+        int offset = 0;
+        for (SerializedItem fragment : fragments) {
+            System.arraycopy(fragment.data, 0, data, offset, fragment.data.length);
+            offset += fragment.data.length;
+        }
+
+        return new SerializedItem(fragments[0].header & ~FRAGMENT, 0, 0, data);
+    }
+
+    public void write(@NotNull DataOutputStream out) throws IOException {
+        out.writeByte(this.header);
+
+        if (isFragment()) {
+            writeVarInt(out, this.fragment);
+            writeVarInt(out, this.fragments);
+        }
+
+        writeVarInt(out, this.data.length);
+        out.write(this.data);
+    }
+
+    public void read(@NotNull DataInputStream in) throws IOException {
+        this.header = in.readUnsignedByte();
+
+        int encoding = this.header & ENCODING_MASK;
+        if (encoding != LEGACY && encoding != COMPACT_V1) throw new IOException("Unknown item format: " + encoding);
+
+        if (isFragment()) {
+            this.fragment = readLength(in);
+            this.fragments = readLength(in);
+            if (this.fragment >= this.fragments) throw new IOException("Invalid fragment: " + this.fragment + "/" + this.fragments);
+        }
+
+        this.data = new byte[readLength(in)];
+        in.readFully(this.data);
+    }
+
+    /**
+     * @return The decoded item. The map and all nested maps and lists are mutable.
+     * @throws Exception If the item could not be decoded.
+     */
+    @NotNull
+    public Map<String, Object> getObject() throws Exception {
+        if (isFragment()) throw new IllegalStateException("Fragments must be joined with an ItemAssembler before they can be decoded.");
+
+        byte[] data = (this.header & DEFLATED) != 0 ? inflate(this.data) : this.data;
+        if ((this.header & ENCODING_MASK) == LEGACY) return decodeLegacy(data);
+        return decode(data);
+    }
+
+    /**
+     * @return The size of this item on the wire in bytes.
+     */
+    public int getSize() {
+        // header + fragment index + fragment count + length
+        return 1 + (isFragment() ? 10 : 0) + 5 + this.data.length;
+    }
+
+    public boolean isFragment() {
+        return (this.header & FRAGMENT) != 0;
+    }
+
+    int getFragment() {
+        return fragment;
+    }
+
+    int getFragments() {
+        return fragments;
+    }
+
+    /**
+     * @return The amount of items which were written in the compact format.
+     */
+    public static long getCompactItems() {
+        return COMPACT_ITEMS.get();
+    }
+
+    /**
+     * @return The amount of items which had to be written as {@link SerializedGeneric}.
+     */
+    public static long getLegacyItems() {
+        return LEGACY_ITEMS.get();
+    }
+
+    /**
+     * @return The average size of an uncompressed item in the compact format in bytes.
+     */
+    public static long getAverageCompactBytes() {
+        long items = COMPACT_ITEMS.get();
+        return items == 0 ? 0 : COMPACT_BYTES.get() / items;
+    }
+
+    /**
+     * @return The amount of items which were compressed.
+     */
+    public static long getCompressedItems() {
+        return COMPRESSED_ITEMS.get();
+    }
+
+    /**
+     * @return The average size of all compressed payloads compared to their uncompressed size in percent.
+     */
+    public static long getCompressionRatio() {
+        long uncompressed = UNCOMPRESSED_BYTES.get();
+        return uncompressed == 0 ? 100 : COMPRESSED_BYTES.get() * 100 / uncompressed;
+    }
+
+    /**
+     * @return The amount of items which had to be split.
+     */
+    public static long getSplitItems() {
+        return SPLIT_ITEMS.get();
+    }
+
+    /**
+     * @return The amount of fragments of all split items.
+     */
+    public static long getFragments() {
+        return FRAGMENTS.get();
+    }
+
+    @NotNull
+    private static byte[] deflate(@NotNull byte[] data, boolean statistics) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 2 + 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeVarInt(out, data.length);
+
+        Deflater deflater = new Deflater(compressionLevel);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+            deflate.write(data);
+        } finally {
+            deflater.end();
+        }
+
+        byte[] compressed = bytes.toByteArray();
+        if (statistics) {
+            UNCOMPRESSED_BYTES.addAndGet(data.length);
+            COMPRESSED_BYTES.addAndGet(Math.min(compressed.length, data.length));
+        }
+        return compressed;
+    }
+
+    @NotNull
+    private static byte[] inflate(@NotNull byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        byte[] inflated = new byte[readLength(in)];
+
+        Inflater inflater = new Inflater();
+        try (DataInputStream inflate = new DataInputStream(new InflaterInputStream(in, inflater))) {
+            inflate.readFully(inflated);
+        } finally {
+            inflater.end();
+        }
+
+        return inflated;
+    }
+
+    @NotNull
+    private static byte[] encodeLegacy(@NotNull Map<String, Object> item) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        new SerializedGeneric(item).write(out);
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @NotNull
+    private static Map<String, Object> decodeLegacy(@NotNull byte[] data) throws Exception {
+        SerializedGeneric generic = new SerializedGeneric();
+        generic.read(new DataInputStream(new ByteArrayInputStream(data)));
+        return generic.getObject();
+    }
+
+    @NotNull
+    private static byte[] encode(@NotNull Map<String, Object> item) throws IOException, UnsupportedValueException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        new Encoder(out).writeMap(item);
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @NotNull
+    private static Map<String, Object> decode(@NotNull byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        return new Decoder(in).readMap();
+    }
+
+    private static void writeVarInt(@NotNull DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.writeByte(value);
+    }
+
+    private static void writeVarLong(@NotNull DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.writeByte((int) value);
+    }
+
+    private static int readVarInt(@NotNull DataInputStream in) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+
+        throw new IOException("VarInt is too big");
+    }
+
+    private static long readVarLong(@NotNull DataInputStream in) throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+
+        throw new IOException("VarLong is too big");
+    }
+
+    private static int readLength(@NotNull DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length < 0 || length > MAX_LENGTH) throw new IOException("Invalid length: " + length);
+        return length;
+    }
+
+    private enum Tag {
+        NULL, FALSE, TRUE, BYTE, SHORT, INT, LONG, FLOAT, DOUBLE, STRING, LIST, MAP;
+
+        private static final Tag[] VALUES = values();
+    }
+
+    private static class Encoder {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private Encoder(@NotNull DataOutputStream out) {
+            this.out = out;
+            for (String s : DICTIONARY) this.strings.put(s, this.strings.size());
+        }
+
+        private void writeValue(Object value) throws IOException, UnsupportedValueException {
+            if (value == null) writeTag(Tag.NULL);
+            else if (value instanceof Boolean) writeTag((Boolean) value ? Tag.TRUE : Tag.FALSE);
+            else if (value instanceof String) {
+                writeTag(Tag.STRING);
+                writeString((String) value);
+            } else if (value instanceof Integer) {
+                writeTag(Tag.INT);
+                int i = (Integer) value;
+                writeVarInt(out, (i << 1) ^ (i >> 31));
+            } else if (value instanceof Short) {
+                writeTag(Tag.SHORT);
+                out.writeShort((Short) value);
+            } else if (value instanceof Byte) {
+                writeTag(Tag.BYTE);
+                out.writeByte((Byte) value);
+            } else if (value instanceof Long) {
+                writeTag(Tag.LONG);
+                long l = (Long) value;
+                writeVarLong(out, (l << 1) ^ (l >> 63));
+            } else if (value instanceof Double) {
+                writeTag(Tag.DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Float) {
+                writeTag(Tag.FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof List) {
+                writeTag(Tag.LIST);
+                List<?> list = (List<?>) value;
+
+                writeVarInt(out, list.size());
+                for (Object o : list) writeValue(o);
+            } else if (value instanceof Map) {
+                writeTag(Tag.MAP);
+                writeMap((Map<?, ?>) value);
+            } else throw new UnsupportedValueException();
+        }
+
+        private void writeMap(@NotNull Map<?, ?> map) throws IOException, UnsupportedValueException {
+            writeVarInt(out, map.size());
+
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                if (!(e.getKey() instanceof String)) throw new UnsupportedValueException();
+
+                writeString((String) e.getKey());
+                writeValue(e.getValue());
+            }
+        }
+
+        /**
+         * Writes the index + 1 of a known string or 0 followed by the UTF-8 bytes of a new string.
+         */
+        private void writeString(@NotNull String s) throws IOException {
+            Integer index = strings.get(s);
+
+            if (index != null) writeVarInt(out, index + 1);
+            else {
+                strings.put(s, strings.size());
+
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(out, 0);
+                writeVarInt(out, bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        private void writeTag(@NotNull Tag tag) throws IOException {
+            out.writeByte(tag.ordinal());
+        }
+    }
+
+    private static class Decoder {
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>(Arrays.asList(DICTIONARY));
+
+        private Decoder(@NotNull DataInputStream in) {
+            this.in = in;
+        }
+
+        private Object readValue() throws IOException {
+            int tag = in.readUnsignedByte();
+            if (tag >= Tag.VALUES.length) throw new IOException("Unknown tag: " + tag);
+
+            switch (Tag.VALUES[tag]) {
+                case NULL:
+                    return null;
+                case FALSE:
+                    return false;
+                case TRUE:
+                    return true;
+                case BYTE:
+                    return in.readByte();
+                case SHORT:
+                    return in.readShort();
+                case INT: {
+                    int i = readVarInt(in);
+                    return (i >>> 1) ^ -(i & 1);
+                }
+                case LONG: {
+                    long l = readVarLong(in);
+                    return (l >>> 1) ^ -(l & 1);
+                }
+                case FLOAT:
+                    return in.readFloat();
+                case DOUBLE:
+                    return in.readDouble();
+                case STRING:
+                    return readString();
+                case LIST: {
+                    int size = readLength(in);
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) list.add(readValue());
+                    return list;
+                }
+                case MAP:
+                    return readMap();
+                default:
+                    throw new IOException("Unknown tag: " + tag);
+            }
+        }
+
+        @NotNull
+        private Map<String, Object> readMap() throws IOException {
+            int size = readLength(in);
+            Map<String, Object> map = new LinkedHashMap<>();
+
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                map.put(key, readValue());
+            }
+
+            return map;
+        }
+
+        @NotNull
+        private String readString() throws IOException {
+            int index = readVarInt(in);
+
+            if (index == 0) {
+                byte[] bytes = new byte[readLength(in)];
+                in.readFully(bytes);
+
+                String s = new String(bytes, StandardCharsets.UTF_8);
+                strings.add(s);
+                return s;
+            }
+
+            if (index < 0 || index > strings.size()) throw new IOException("Unknown string index: " + index);
+            return strings.get(index - 1);
+        }
+    }
+
+    /**
+     * Thrown if a value cannot be written in the compact format.
+     */
+    private static class UnsupportedValueException extends Exception {
+        private UnsupportedValueException() {
+            super(null, null, false, false);
+        }
+    }
+}
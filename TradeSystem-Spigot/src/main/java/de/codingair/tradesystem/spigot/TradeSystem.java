@@ -11,6 +11,7 @@ import de.codingair.tradesystem.spigot.commands.TradeCMD;
 import de.codingair.tradesystem.spigot.commands.TradeSystemCMD;
 import de.codingair.tradesystem.spigot.extras.bstats.MetricsManager;
 import de.codingair.tradesystem.spigot.extras.external.PluginDependencies;
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeLogService;
 import de.codingair.tradesystem.spigot.extras.tradelog.commands.TradeLogCMD;
 import de.codingair.tradesystem.spigot.trade.TradeHandler;
 import de.codingair.tradesystem.spigot.trade.gui.TradeGUIListener;
@@ -29,6 +30,7 @@ import de.codingair.tradesystem.spigot.utils.BackwardSupport;
 import de.codingair.tradesystem.spigot.utils.Lang;
 import de.codingair.tradesystem.spigot.utils.Permissions;
 import de.codingair.tradesystem.spigot.utils.database.DatabaseInitializer;
+import de.codingair.tradesystem.spigot.utils.database.migrations.mysql.MySQLConnection;
 import de.codingair.tradesystem.spigot.utils.updates.NotifyListener;
 import de.codingair.tradesystem.spigot.utils.updates.UpdateNotifier;
 import org.bukkit.Bukkit;
@@ -91,6 +93,7 @@ public class TradeSystem extends JavaPlugin implements Proxy {
     public void onEnable() {
         instance = this;
         API.getInstance().onEnable(this);
+        TradeLogService.enable();
 
         printConsoleInfo(() -> {
             loadConfigFiles();
@@ -131,6 +134,8 @@ public class TradeSystem extends JavaPlugin implements Proxy {
 
         printConsoleInfo(() -> {
             this.tradeHandler.disable();
+            TradeLogService.shutdown();
+            MySQLConnection.shutdown();
 
             this.tradeCMD.unregister();
             this.tradeSystemCMD.unregister();
@@ -142,6 +147,7 @@ public class TradeSystem extends JavaPlugin implements Proxy {
 
             HandlerList.unregisterAll(this);
             this.fileManager.destroy();
+            Lang.clearCache();
 
             PluginDependencies.disable();
 
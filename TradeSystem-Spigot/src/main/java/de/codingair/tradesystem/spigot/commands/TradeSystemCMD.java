@@ -8,14 +8,22 @@ import de.codingair.codingapi.server.commands.builder.CommandBuilder;
 import de.codingair.codingapi.server.commands.builder.CommandComponent;
 import de.codingair.codingapi.server.commands.builder.special.MultiCommandComponent;
 import de.codingair.codingapi.tools.io.JSON.JSON;
+import de.codingair.tradesystem.proxy.packets.utils.SerializedItem;
 import de.codingair.tradesystem.spigot.TradeSystem;
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeLogService;
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeLogWriter;
+import de.codingair.tradesystem.spigot.trade.TradeUpdateScheduler;
 import de.codingair.tradesystem.spigot.trade.gui.editor.Editor;
 import de.codingair.tradesystem.spigot.trade.gui.layout.LayoutManager;
 import de.codingair.tradesystem.spigot.trade.gui.layout.Pattern;
 import de.codingair.tradesystem.spigot.trade.gui.layout.patterns.DefaultPattern;
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.economy.BalanceCache;
 import de.codingair.tradesystem.spigot.trade.gui.layout.utils.Name;
+import de.codingair.tradesystem.spigot.trade.journal.SettlementJournal;
 import de.codingair.tradesystem.spigot.utils.Lang;
 import de.codingair.tradesystem.spigot.utils.Permissions;
+import de.codingair.tradesystem.spigot.utils.database.ConnectionPool;
+import de.codingair.tradesystem.spigot.utils.database.migrations.mysql.MySQLConnection;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
@@ -64,6 +72,57 @@ public class TradeSystemCMD extends CommandBuilder {
             }
         });
 
+        getBaseComponent().addChild(new CommandComponent("stats") {
+            @Override
+            public boolean runCommand(CommandSender sender, String label, String[] args) {
+                TradeUpdateScheduler scheduler = TradeSystem.man().getUpdateScheduler();
+
+                sender.sendMessage(Lang.getPrefix() + Lang.get("Stats_Trade_Updates",
+                        new Lang.P("requested", String.valueOf(scheduler.getRequestedUpdates())),
+                        new Lang.P("coalesced", String.valueOf(scheduler.getCoalescedUpdates()))));
+                sender.sendMessage(Lang.getPrefix() + Lang.get("Stats_Inventory_Updates",
+                        new Lang.P("requested", String.valueOf(scheduler.getRequestedSyncs())),
+                        new Lang.P("coalesced", String.valueOf(scheduler.getCoalescedSyncs()))));
+
+                SettlementJournal journal = TradeSystem.man().getSettlementJournal();
+                sender.sendMessage(Lang.getPrefix() + Lang.get("Stats_Balance_Cache",
+                        new Lang.P("hits", String.valueOf(BalanceCache.getHits())),
+                        new Lang.P("misses", String.valueOf(BalanceCache.getMisses()))));
+                sender.sendMessage(Lang.getPrefix() + Lang.get("Stats_Settlement_Journal",
+                        new Lang.P("writes", String.valueOf(journal.getWrites())),
+                        new Lang.P("nanos", String.valueOf(journal.getAverageWriteNanos())),
+                        new Lang.P("recoveries", String.valueOf(journal.getPendingRecoveries()))));
+                sender.sendMessage(Lang.getPrefix() + Lang.get("Stats_Proxy_Items",
+                        new Lang.P("compact", String.valueOf(SerializedItem.getCompactItems())),
+                        new Lang.P("bytes", String.valueOf(SerializedItem.getAverageCompactBytes())),
+                        new Lang.P("legacy", String.valueOf(SerializedItem.getLegacyItems()))));
+                sender.sendMessage(Lang.getPrefix() + Lang.get("Stats_Proxy_Compression",
+                        new Lang.P("compressed", String.valueOf(SerializedItem.getCompressedItems())),
+                        new Lang.P("ratio", String.valueOf(SerializedItem.getCompressionRatio())),
+                        new Lang.P("split", String.valueOf(SerializedItem.getSplitItems())),
+                        new Lang.P("fragments", String.valueOf(SerializedItem.getFragments()))));
+                sender.sendMessage(Lang.getPrefix() + Lang.get("Stats_Proxy_Messages",
+                        new Lang.P("packets", String.valueOf(TradeSystem.proxyHandler().getSentFrames())),
+                        new Lang.P("messages", String.valueOf(TradeSystem.proxyHandler().getSentMessages()))));
+
+                TradeLogWriter writer = TradeLogService.getWriter();
+                if (writer != null) sender.sendMessage(Lang.getPrefix() + Lang.get("Stats_Trade_Log",
+                        new Lang.P("entries", String.valueOf(writer.getWritten())),
+                        new Lang.P("batches", String.valueOf(writer.getBatches())),
+                        new Lang.P("pending", String.valueOf(writer.getPending())),
+                        new Lang.P("dropped", String.valueOf(writer.getDropped()))));
+
+                ConnectionPool pool = MySQLConnection.getPool();
+                if (pool != null) sender.sendMessage(Lang.getPrefix() + Lang.get("Stats_Connection_Pool",
+                        new Lang.P("active", String.valueOf(pool.getActive())),
+                        new Lang.P("idle", String.valueOf(pool.getIdle())),
+                        new Lang.P("wait", String.valueOf(pool.getAverageWaitNanos() / 1000)),
+                        new Lang.P("timeouts", String.valueOf(pool.getTimeouts())),
+                        new Lang.P("leaks", String.valueOf(pool.getLeaks()))));
+                return true;
+            }
+        });
+
         getBaseComponent().addChild(new CommandComponent("layout") {
             @Override
             public boolean runCommand(CommandSender sender, String label, String[] args) {
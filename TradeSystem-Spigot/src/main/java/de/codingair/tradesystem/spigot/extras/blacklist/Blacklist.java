@@ -0,0 +1,170 @@
+package de.codingair.tradesystem.spigot.extras.blacklist;
+
+import de.codingair.codingapi.server.specification.Version;
+import de.codingair.tradesystem.spigot.utils.ShulkerBoxHelper;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * A compiled index of all {@link BlockedItem}s. Rules are bucketed by their material, rules which only check the material are answered by a set
+ * lookup and all string comparisons are compiled once. The item meta of a checked item will be extracted only once for all rules.
+ */
+public class Blacklist {
+    private final Set<Material> blockedMaterials = EnumSet.noneOf(Material.class);
+    private final Map<Material, List<Rule>> rulesByMaterial = new EnumMap<>(Material.class);
+    private final List<Rule> rules = new ArrayList<>();
+    private final boolean checkShulkerBoxes = Version.atLeast(11);
+
+    public Blacklist(@NotNull Collection<BlockedItem> items) {
+        boolean legacyData = !Version.get().isBiggerThan(Version.v1_12);
+        boolean customModelData = !Version.less(14);
+
+        for (BlockedItem item : items) {
+            Rule rule = Rule.compile(item, legacyData, customModelData);
+            if (rule == null) continue;
+
+            if (item.material == null) this.rules.add(rule);
+            else if (rule.isMaterialOnly()) this.blockedMaterials.add(item.material);
+            else this.rulesByMaterial.computeIfAbsent(item.material, m -> new ArrayList<>()).add(rule);
+        }
+    }
+
+    /**
+     * @param item The {@link ItemStack} to check.
+     * @return {@link Boolean#TRUE} if the item or the content of a shulker box matches at least one {@link BlockedItem}.
+     */
+    public boolean matches(@NotNull ItemStack item) {
+        Material type = item.getType();
+        if (this.blockedMaterials.contains(type)) return true;
+
+        List<Rule> rules = this.rulesByMaterial.get(type);
+        boolean shulkerBox = this.checkShulkerBoxes && ShulkerBoxHelper.isShulkerBox(type);
+        if (rules == null && this.rules.isEmpty() && !shulkerBox) return false;
+
+        ItemMeta meta = item.hasItemMeta() ? item.getItemMeta() : null;
+        Properties properties = new Properties(item, meta);
+
+        if (rules != null && matchesAny(rules, properties)) return true;
+        if (matchesAny(this.rules, properties)) return true;
+
+        if (shulkerBox && meta != null) {
+            for (ItemStack content : ShulkerBoxHelper.getItems(meta)) {
+                if (content != null && matches(content)) return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean matchesAny(@NotNull List<Rule> rules, @NotNull Properties properties) {
+        for (Rule rule : rules) {
+            if (rule.matches(properties)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * The meta properties of a checked item. Each property will be read at most once.
+     */
+    private static class Properties {
+        private final ItemStack item;
+        private final ItemMeta meta;
+
+        private String displayName;
+        private List<String> lore;
+        private boolean loreLoaded = false;
+
+        private Properties(@NotNull ItemStack item, @Nullable ItemMeta meta) {
+            this.item = item;
+            this.meta = meta;
+        }
+
+        @Nullable
+        private String getDisplayName() {
+            if (displayName == null && meta != null) displayName = meta.getDisplayName();
+            return displayName;
+        }
+
+        @Nullable
+        private List<String> getLore() {
+            if (!loreLoaded) {
+                loreLoaded = true;
+                if (meta != null) lore = meta.getLore();
+            }
+
+            return lore;
+        }
+    }
+
+    private static class Rule {
+        private final Byte data;
+        private final Predicate<String> displayName;
+        private final Predicate<String> lore;
+        private final Integer customModelData;
+
+        private Rule(@Nullable Byte data, @Nullable Predicate<String> displayName, @Nullable Predicate<String> lore, @Nullable Integer customModelData) {
+            this.data = data;
+            this.displayName = displayName;
+            this.lore = lore;
+            this.customModelData = customModelData;
+        }
+
+        @Nullable
+        private static Rule compile(@NotNull BlockedItem item, boolean legacyData, boolean customModelData) {
+            if (item.material == null && item.displayName == null && item.lore == null && item.customModelData == null) return null;
+
+            return new Rule(
+                    legacyData && item.material != null ? item.data : null,
+                    item.displayName == null ? null : item.compare.compile(item.displayName),
+                    item.lore == null ? null : item.compare.compile(item.lore),
+                    customModelData ? item.customModelData : null
+            );
+        }
+
+        private boolean isMaterialOnly() {
+            return data == null && displayName == null && lore == null && customModelData == null;
+        }
+
+        private boolean matches(@NotNull Properties properties) {
+            if (data != null) {
+                //noinspection deprecation
+                if (properties.item.getData() == null || data != properties.item.getData().getData()) return false;
+            }
+
+            if (displayName != null) {
+                if (properties.meta == null) return false;
+
+                String name = properties.getDisplayName();
+                if (name == null || !displayName.test(name)) return false;
+            }
+
+            if (lore != null) {
+                List<String> lines = properties.getLore();
+                if (lines == null) return false;
+
+                boolean found = false;
+                for (String line : lines) {
+                    if (line != null && lore.test(line)) {
+                        found = true;
+                        break;
+                    }
+                }
+
+                if (!found) return false;
+            }
+
+            if (customModelData != null) {
+                return properties.meta != null && customModelData == properties.meta.getCustomModelData();
+            }
+
+            return true;
+        }
+    }
+}
@@ -18,6 +18,7 @@ import org.json.simple.parser.ParseException;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.BiFunction;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -312,5 +313,29 @@ public class BlockedItem implements Serializable {
             if (s == null) return false;
             return compare.apply(s, with);
         }
+
+        /**
+         * @param with The string to compare with.
+         * @return A predicate which behaves like {@link #check(String, String)} but prepares 'with' only once, e.g. by compiling the regex.
+         */
+        @NotNull
+        public Predicate<String> compile(@NotNull String with) {
+            switch (this) {
+                case CONTAINS_IGNORE_CASE: {
+                    String lower = with.toLowerCase();
+                    return s -> s.toLowerCase().contains(lower);
+                }
+                case REGEX_ANY: {
+                    Pattern pattern = Pattern.compile(with);
+                    return s -> pattern.matcher(s).find();
+                }
+                case REGEX_ALL: {
+                    Pattern pattern = Pattern.compile(with);
+                    return s -> pattern.matcher(s).matches();
+                }
+                default:
+                    return s -> compare.apply(s, with);
+            }
+        }
     }
 }
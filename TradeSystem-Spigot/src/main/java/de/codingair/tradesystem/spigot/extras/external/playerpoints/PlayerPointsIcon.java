@@ -32,12 +32,17 @@ public class PlayerPointsIcon extends EconomyIcon<ShowPlayerPointsIcon> {
 
     @Override
     protected void withdraw(Player player, @NotNull BigDecimal value) {
-        api().take(player.getUniqueId(), value.intValue());
+        if (!api().take(player.getUniqueId(), value.intValue())) throw new IllegalStateException("Could not take " + value.intValue() + " PlayerPoints from " + player.getName());
     }
 
     @Override
     protected void deposit(Player player, @NotNull BigDecimal value) {
-        api().give(player.getUniqueId(), value.intValue());
+        if (!api().give(player.getUniqueId(), value.intValue())) throw new IllegalStateException("Could not give " + value.intValue() + " PlayerPoints to " + player.getName());
+    }
+
+    @Override
+    protected boolean isAsyncSettlement() {
+        return true;
     }
 
     @Override
@@ -34,12 +34,17 @@ public class TokenIcon extends EconomyIcon<ShowTokenIcon> {
 
     @Override
     protected void withdraw(Player player, @NotNull BigDecimal value) {
-        getTokenManager().removeTokens(player, value.longValue());
+        if (!getTokenManager().removeTokens(player, value.longValue())) throw new IllegalStateException("Could not remove " + value.longValue() + " tokens from " + player.getName());
     }
 
     @Override
     protected void deposit(Player player, @NotNull BigDecimal value) {
-        getTokenManager().addTokens(player, value.longValue());
+        if (!getTokenManager().addTokens(player, value.longValue())) throw new IllegalStateException("Could not add " + value.longValue() + " tokens to " + player.getName());
+    }
+
+    @Override
+    protected boolean isAsyncSettlement() {
+        return true;
     }
 
     @Override
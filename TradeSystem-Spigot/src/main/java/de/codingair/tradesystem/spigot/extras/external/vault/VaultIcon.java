@@ -1,9 +1,11 @@
 package de.codingair.tradesystem.spigot.extras.external.vault;
 
+import de.codingair.tradesystem.spigot.TradeSystem;
 import de.codingair.tradesystem.spigot.extras.external.EconomySupportType;
 import de.codingair.tradesystem.spigot.extras.external.TypeCap;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.economy.EconomyIcon;
 import net.milkbowl.vault.economy.Economy;
+import net.milkbowl.vault.economy.EconomyResponse;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -13,6 +15,8 @@ import org.jetbrains.annotations.NotNull;
 import java.math.BigDecimal;
 
 public class VaultIcon extends EconomyIcon<ShowVaultIcon> {
+    private Economy economy;
+
     public VaultIcon(@NotNull ItemStack itemStack) {
         super(itemStack, "Coin", "Coins", true);
     }
@@ -29,12 +33,24 @@ public class VaultIcon extends EconomyIcon<ShowVaultIcon> {
 
     @Override
     protected void withdraw(Player player, @NotNull BigDecimal value) {
-        getEconomy().withdrawPlayer(player, value.doubleValue());
+        check(getEconomy().withdrawPlayer(player, value.doubleValue()));
     }
 
     @Override
     protected void deposit(Player player, @NotNull BigDecimal value) {
-        getEconomy().depositPlayer(player, value.doubleValue());
+        check(getEconomy().depositPlayer(player, value.doubleValue()));
+    }
+
+    private void check(@NotNull EconomyResponse response) {
+        if (!response.transactionSuccess()) throw new IllegalStateException(response.errorMessage);
+    }
+
+    /**
+     * Vault does not guarantee thread-safe economy providers, so async settlements must be enabled in the config.
+     */
+    @Override
+    protected boolean isAsyncSettlement() {
+        return TradeSystem.man().isAsyncVaultSettlement();
     }
 
     @Override
@@ -42,9 +58,14 @@ public class VaultIcon extends EconomyIcon<ShowVaultIcon> {
         return EconomySupportType.DOUBLE;
     }
 
+    /**
+     * @return The economy provider. Resolved once since every trade uses its own icon instances.
+     */
     private Economy getEconomy() {
+        if (economy != null) return economy;
+
         RegisteredServiceProvider<Economy> economyProvider = Bukkit.getServer().getServicesManager().getRegistration(Economy.class);
-        if (economyProvider != null) return economyProvider.getProvider();
+        if (economyProvider != null) return economy = economyProvider.getProvider();
 
         throw new IllegalStateException("Vault is not enabled properly.");
     }
@@ -9,6 +9,7 @@ import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -123,12 +124,18 @@ public class TradeLog {
         private final String player2Name;
         private final String message;
         private final LocalDateTime timestamp;
+        private final Cursor cursor;
 
         public Entry(String player1Name, String player2Name, String message, LocalDateTime timestamp) {
+            this(player1Name, player2Name, message, timestamp, null);
+        }
+
+        public Entry(String player1Name, String player2Name, String message, LocalDateTime timestamp, @Nullable Cursor cursor) {
             this.player1Name = player1Name;
             this.player2Name = player2Name;
             this.message = message;
             this.timestamp = timestamp;
+            this.cursor = cursor;
         }
 
         public String getPlayer1Name() {
@@ -146,5 +153,36 @@ public class TradeLog {
         public LocalDateTime getTimestamp() {
             return timestamp;
         }
+
+        /**
+         * @return The position of this entry in the log or null if the repository does not support pagination.
+         */
+        @Nullable
+        public Cursor getCursor() {
+            return cursor;
+        }
+    }
+
+    /**
+     * The position of a log entry ordered by timestamp and id. Used to continue reading the log after the last entry of a page.
+     */
+    public static class Cursor {
+        public static final Cursor START = new Cursor(Long.MAX_VALUE, Long.MAX_VALUE);
+
+        private final long timestamp;
+        private final long id;
+
+        public Cursor(long timestamp, long id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getId() {
+            return id;
+        }
     }
 }
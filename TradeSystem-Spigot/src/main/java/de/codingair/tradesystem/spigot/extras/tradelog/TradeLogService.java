@@ -13,43 +13,137 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TradeLogService {
+    public static final int PAGE_SIZE = 40;
+    private static final int CACHED_PLAYERS = 64;
+
     private static TradeLogService instance;
+    private static TradeLogService stopped;  // the service of the current disable which writes late entries on the calling thread
     private final TradeLogRepository tradeLogRepository = getTradeLogRepository();
+    private final TradeLogWriter writer = tradeLogRepository == null ? null : new TradeLogWriter(tradeLogRepository);
+
+    // player name -> cursor at which each known page starts (index 0 = page 1)
+    private final Map<String, List<TradeLog.Cursor>> pageCursors = new LinkedHashMap<String, List<TradeLog.Cursor>>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<TradeLog.Cursor>> eldest) {
+            return size() > CACHED_PLAYERS;
+        }
+    };
 
     private TradeLogService() {
     }
 
     private static TradeLogService getTradeLog() {
-        if (instance == null) instance = new TradeLogService();
+        if (instance == null) {
+            if (stopped != null) return stopped;
+            instance = new TradeLogService();
+        }
         return instance;
     }
 
+    /**
+     * Forgets the service of the previous disable, so the next log entry starts a new repository and writer, e.g. after a reload.
+     */
+    public static void enable() {
+        stopped = null;
+    }
+
     public static void log(@NotNull String player1, @NotNull String player2, @Nullable String message) {
         if (message == null || notConnected()) return;
+        getTradeLog().writer.add(new TradeLogWriter.Line(player1, player2, message, System.currentTimeMillis()));
+    }
 
-        Runnable runnable = () -> getTradeLog().tradeLogRepository.log(player1, player2, message);
-
-        //it will throw an error if the plugin is not enabled
-        if (TradeSystem.getInstance().isEnabled()) Bukkit.getScheduler().runTaskAsynchronously(TradeSystem.getInstance(), runnable);
-        else runnable.run();
+    /**
+     * @param record The finished or cancelled trade.
+     */
+    public static void logTrade(@NotNull TradeRecord record) {
+        if (notConnected()) return;
+        getTradeLog().writer.add(record);
     }
 
     public static void logLater(@NotNull String player1, @NotNull String player2, @Nullable String message, long delay) {
         if (message == null || notConnected()) return;
 
-        Runnable runnable = () -> getTradeLog().tradeLogRepository.log(player1, player2, message);
+        Runnable runnable = () -> log(player1, player2, message);
 
         //it will throw an error if the plugin is not enabled
-        if (TradeSystem.getInstance().isEnabled()) Bukkit.getScheduler().runTaskLaterAsynchronously(TradeSystem.getInstance(), runnable, delay);
+        if (TradeSystem.getInstance().isEnabled()) Bukkit.getScheduler().runTaskLater(TradeSystem.getInstance(), runnable, delay);
         else runnable.run();
     }
 
+    /**
+     * Writes all pending log lines. Lines which will be logged afterwards during the disable are written on the calling thread instead of starting
+     * a new writer. The next enable starts a fresh service.
+     */
+    public static void shutdown() {
+        if (instance == null) return;
+        if (instance.writer != null) instance.writer.shutdown();
+        if (instance.tradeLogRepository != null) instance.tradeLogRepository.close();
+
+        stopped = instance;
+        instance = null;
+    }
+
+    /**
+     * @return The writer of the trade log or null if nothing was logged yet.
+     */
+    @Nullable
+    public static TradeLogWriter getWriter() {
+        return instance == null ? null : instance.writer;
+    }
+
     public static List<TradeLog.Entry> getLogMessages(String playerName) {
+        return getLogMessages(playerName, 1);
+    }
+
+    /**
+     * Pages are read with the cursor at which they start. Cursors of visited pages are remembered, so reading the next or a previously visited page
+     * does not depend on the size of the log. Reading page 1 starts over to include new entries.
+     *
+     * @param playerName The name of the player.
+     * @param page       The page starting at 1.
+     * @return The entries of the page ordered from new to old. Empty if the page does not exist. Null if the log could not be read.
+     */
+    public static List<TradeLog.Entry> getLogMessages(String playerName, int page) {
         if (notConnected()) return new ArrayList<>();
-        return getTradeLog().tradeLogRepository.getLogMessages(playerName);
+        return getTradeLog().getPage(playerName, Math.max(1, page));
+    }
+
+    @Nullable
+    private List<TradeLog.Entry> getPage(@NotNull String playerName, int page) {
+        List<TradeLog.Cursor> cursors;
+        synchronized (pageCursors) {
+            if (page == 1) pageCursors.remove(playerName);
+            List<TradeLog.Cursor> known = pageCursors.get(playerName);
+            cursors = known == null ? new ArrayList<>(Collections.singletonList(TradeLog.Cursor.START)) : new ArrayList<>(known);
+        }
+
+        // continue from the nearest known page before the requested one
+        int current = Math.min(page, cursors.size());
+        List<TradeLog.Entry> entries;
+
+        while (true) {
+            entries = tradeLogRepository.getLogMessages(playerName, cursors.get(current - 1), PAGE_SIZE);
+            if (entries == null) return null;
+
+            TradeLog.Cursor next = entries.size() == PAGE_SIZE ? entries.get(entries.size() - 1).getCursor() : null;
+            if (next != null && cursors.size() == current) cursors.add(next);
+
+            if (current == page) break;
+            if (next == null) return new ArrayList<>();
+            current++;
+        }
+
+        synchronized (pageCursors) {
+            pageCursors.put(playerName, cursors);
+        }
+
+        return entries;
     }
 
     public static boolean notConnected() {
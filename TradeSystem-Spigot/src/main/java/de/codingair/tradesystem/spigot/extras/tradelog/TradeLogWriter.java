@@ -0,0 +1,215 @@
+package de.codingair.tradesystem.spigot.extras.tradelog;
+
+import de.codingair.tradesystem.spigot.TradeSystem;
+import de.codingair.tradesystem.spigot.extras.tradelog.repository.TradeLogRepository;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Writes trade log lines and {@link TradeRecord trade records} on a single worker thread. Both are collected in a bounded queue and written in
+ * batches when either the batch is full or the oldest entry waited for the flush interval. If the queue is full, entries of the server thread will be
+ * dropped immediately while other callers wait for a short time before the entry will be dropped.
+ */
+public class TradeLogWriter {
+    private static final int CAPACITY = 10000;
+    private static final int BATCH_SIZE = 200;
+    private static final long FLUSH_INTERVAL = 1000;
+    private static final long OFFER_TIMEOUT = 100;
+
+    private final TradeLogRepository repository;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean dropping = false;
+
+    public TradeLogWriter(@NotNull TradeLogRepository repository) {
+        this.repository = repository;
+
+        this.thread = new Thread(this::run, "TradeSystem-TradeLog");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * @param line The line to write. Will be written on the calling thread if the writer was already stopped.
+     */
+    public void add(@NotNull Line line) {
+        enqueue(line);
+    }
+
+    /**
+     * @param record The trade to write. Will be written on the calling thread if the writer was already stopped.
+     */
+    public void add(@NotNull TradeRecord record) {
+        enqueue(record);
+    }
+
+    private void enqueue(@NotNull Object entry) {
+        if (!running) {
+            // late entries while disabling the plugin; release the connection again afterwards
+            write(Collections.singletonList(entry));
+            repository.close();
+            return;
+        }
+
+        try {
+            // never block the server thread
+            if (queue.offer(entry) || (!Bukkit.isPrimaryThread() && queue.offer(entry, OFFER_TIMEOUT, TimeUnit.MILLISECONDS))) {
+                dropping = false;
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        dropped.incrementAndGet();
+        if (!dropping) {
+            dropping = true;
+            TradeSystem.getInstance().getLogger().warning("The trade log cannot keep up with writing. New log entries will be dropped until the queue has free space.");
+        }
+    }
+
+    /**
+     * Writes all pending entries and stops the worker thread.
+     */
+    public void shutdown() {
+        if (!running) return;
+        running = false;
+
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // in case the worker could not finish in time
+        List<Object> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) write(remaining);
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(BATCH_SIZE);
+
+        // keep writing after a shutdown until the queue is empty
+        while (running || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.currentTimeMillis() + FLUSH_INTERVAL;
+                while (batch.size() < BATCH_SIZE) {
+                    queue.drainTo(batch, BATCH_SIZE - batch.size());
+                    if (batch.size() >= BATCH_SIZE || !running) break;
+
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) break;
+
+                    Object next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (!batch.isEmpty()) write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(@NotNull List<Object> entries) {
+        List<Line> lines = new ArrayList<>(entries.size());
+        List<TradeRecord> records = new ArrayList<>();
+
+        for (Object entry : entries) {
+            if (entry instanceof Line) lines.add((Line) entry);
+            else records.add((TradeRecord) entry);
+        }
+
+        try {
+            if (!lines.isEmpty()) repository.log(lines);
+            if (!records.isEmpty()) repository.logTrades(records);
+            written.addAndGet(entries.size());
+            batches.incrementAndGet();
+        } catch (Throwable t) {
+            TradeSystem.getInstance().getLogger().log(Level.SEVERE, "Could not write " + entries.size() + " trade log entries.", t);
+        }
+    }
+
+    /**
+     * @return The amount of lines and trades which were written.
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * @return The amount of batches which were used to write all entries.
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * @return The amount of entries which were dropped because the queue was full.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The amount of entries which wait to be written.
+     */
+    public int getPending() {
+        return queue.size();
+    }
+
+    public static class Line {
+        private final String player1;
+        private final String player2;
+        private final String message;
+        private final long timestamp;
+
+        public Line(@NotNull String player1, @NotNull String player2, @NotNull String message, long timestamp) {
+            this.player1 = player1;
+            this.player2 = player2;
+            this.message = message;
+            this.timestamp = timestamp;
+        }
+
+        @NotNull
+        public String getPlayer1() {
+            return player1;
+        }
+
+        @NotNull
+        public String getPlayer2() {
+            return player2;
+        }
+
+        @NotNull
+        public String getMessage() {
+            return message;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package de.codingair.tradesystem.spigot.extras.tradelog;
+
+import de.codingair.tradesystem.proxy.packets.utils.SerializedItem;
+import de.codingair.tradesystem.spigot.transfer.utils.ItemStackUtils;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The structured log of a single trade. The first player is always the player who initiated the trade. Items and economy transfers are recorded
+ * with the index of the receiving player. Proxy trades are recorded by both servers with the same trade id: Each record only contains the goods the
+ * player of the recording server received.
+ */
+public class TradeRecord {
+    private final UUID tradeId;
+    private final String[] players = new String[2];
+    private final UUID[] uniqueIds = new UUID[2];
+    private final boolean initiationServer;
+    private final long started = System.currentTimeMillis();
+    private long ended;
+    private Outcome outcome;
+    private String reason;
+
+    private final List<ItemTransfer> items = new ArrayList<>();
+    private final List<EconomyTransfer> economy = new ArrayList<>();
+
+    /**
+     * @param tradeId            The id of the trade. Proxy trades use the same id on both servers.
+     * @param initiator          The name of the player who initiated the trade.
+     * @param initiatorId        The id of the player who initiated the trade. Null if the player is on another server.
+     * @param partner            The name of the trade partner.
+     * @param partnerId          The id of the trade partner. Null if the player is on another server.
+     * @param initiationServer   Whether the trade was initiated on this server.
+     */
+    public TradeRecord(@NotNull UUID tradeId, @NotNull String initiator, @Nullable UUID initiatorId, @NotNull String partner, @Nullable UUID partnerId, boolean initiationServer) {
+        this.tradeId = tradeId;
+        this.players[0] = initiator;
+        this.players[1] = partner;
+        this.uniqueIds[0] = initiatorId;
+        this.uniqueIds[1] = partnerId;
+        this.initiationServer = initiationServer;
+    }
+
+    /**
+     * @param receiver The name of the receiving player.
+     * @param item     The received item.
+     */
+    public void addItem(@NotNull String receiver, @NotNull ItemStack item) {
+        items.add(new ItemTransfer(indexOf(receiver), item.getType().name(), item.getAmount(), serialize(item)));
+    }
+
+    /**
+     * @param receiver The name of the receiving player.
+     * @param currency The name of the currency.
+     * @param amount   The received amount.
+     */
+    public void addEconomy(@NotNull String receiver, @NotNull String currency, @NotNull BigDecimal amount) {
+        economy.add(new EconomyTransfer(indexOf(receiver), currency, amount));
+    }
+
+    /**
+     * @param outcome The outcome of the trade.
+     * @param reason  The reason of a cancellation. Null otherwise.
+     */
+    public void end(@NotNull Outcome outcome, @Nullable String reason) {
+        this.ended = System.currentTimeMillis();
+        this.outcome = outcome;
+        this.reason = reason;
+    }
+
+    private int indexOf(@NotNull String player) {
+        return players[1].equals(player) ? 1 : 0;
+    }
+
+    @Nullable
+    private static byte[] serialize(@NotNull ItemStack item) {
+        Map<String, Object> data = ItemStackUtils.serializeItemStack(item);
+        if (data == null) return null;
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            SerializedItem.forStorage(data).write(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @NotNull
+    public UUID getTradeId() {
+        return tradeId;
+    }
+
+    /**
+     * @param index 0 for the initiator, 1 for the trade partner.
+     * @return The name of the player.
+     */
+    @NotNull
+    public String getPlayer(int index) {
+        return players[index];
+    }
+
+    /**
+     * @param index 0 for the initiator, 1 for the trade partner.
+     * @return The id of the player. Null if the player was on another server.
+     */
+    @Nullable
+    public UUID getUniqueId(int index) {
+        return uniqueIds[index];
+    }
+
+    public boolean isInitiationServer() {
+        return initiationServer;
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    public long getEnded() {
+        return ended;
+    }
+
+    @NotNull
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    @Nullable
+    public String getReason() {
+        return reason;
+    }
+
+    @NotNull
+    public List<ItemTransfer> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    @NotNull
+    public List<EconomyTransfer> getEconomy() {
+        return Collections.unmodifiableList(economy);
+    }
+
+    public enum Outcome {
+        FINISHED,
+        CANCELLED
+    }
+
+    public static class ItemTransfer {
+        private final int receiver;
+        private final String material;
+        private final int amount;
+        private final byte[] data;
+
+        private ItemTransfer(int receiver, @NotNull String material, int amount, @Nullable byte[] data) {
+            this.receiver = receiver;
+            this.material = material;
+            this.amount = amount;
+            this.data = data;
+        }
+
+        /**
+         * @return 0 for the initiator, 1 for the trade partner.
+         */
+        public int getReceiver() {
+            return receiver;
+        }
+
+        @NotNull
+        public String getMaterial() {
+            return material;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+
+        /**
+         * @return The item encoded as {@link SerializedItem}. Null if the item could not be serialized.
+         */
+        @Nullable
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+    public static class EconomyTransfer {
+        private final int receiver;
+        private final String currency;
+        private final BigDecimal amount;
+
+        private EconomyTransfer(int receiver, @NotNull String currency, @NotNull BigDecimal amount) {
+            this.receiver = receiver;
+            this.currency = currency;
+            this.amount = amount;
+        }
+
+        /**
+         * @return 0 for the initiator, 1 for the trade partner.
+         */
+        public int getReceiver() {
+            return receiver;
+        }
+
+        @NotNull
+        public String getCurrency() {
+            return currency;
+        }
+
+        @NotNull
+        public BigDecimal getAmount() {
+            return amount;
+        }
+    }
+}
@@ -56,65 +56,101 @@ public class TradeLogCMD extends CommandBuilder {
 
             @Override
             public boolean runCommand(CommandSender sender, String label, String argument, String[] args) {
+                showLog(sender, label, argument, 1);
+                return false;
+            }
+        });
+
+        //LOG PAGE
+        getComponent((String) null).addChild(new MultiCommandComponent() {
+            @Override
+            public void addArguments(CommandSender sender, String[] args, List<String> suggestions) {
+                suggestions.add("2");
+            }
+
+            @Override
+            public boolean runCommand(CommandSender sender, String label, String argument, String[] args) {
+                int page;
                 try {
-                    if (TradeLog.isEnabled()) {
-                        Bukkit.getScheduler().runTaskAsynchronously(TradeSystem.getInstance(), () -> {
-                            if (TradeLogService.notConnected()) {
-                                sender.sendMessage(Lang.getPrefix() + Lang.get("TradeLog_Disabled", new Lang.P("label", label)));
-                                return;
-                            }
+                    page = Integer.parseInt(argument);
+                } catch (NumberFormatException e) {
+                    page = 0;
+                }
 
-                            List<TradeLog.Entry> log = TradeLogService.getLogMessages(argument);
+                if (page < 1) {
+                    sender.sendMessage(Lang.getPrefix() + Lang.get("Help_TradeLog", new Lang.P("label", label)));
+                    return false;
+                }
 
-                            List<String> messages = new ArrayList<>();
-                            messages.add("§0");
-                            messages.add("§0");
-                            messages.add("§7§m                            §c §lTRADE LOG§7 §m                            ");
-                            messages.add("§0");
+                showLog(sender, label, args[0], page);
+                return false;
+            }
+        });
+    }
 
-                            if (log.isEmpty()) messages.add("  §c-");
-                            else {
-                                String p1 = null;
-                                String p2 = null;
-                                boolean samePlayers = false;
-
-                                for (int i = 0; i < log.size(); i++) {
-                                    TradeLog.Entry l = log.get(i);
-                                    boolean last = i + 1 == log.size();
-
-                                    String name1 = l.getPlayer1Name();
-                                    String name2 = l.getPlayer2Name();
-
-                                    samePlayers = p1 == null || Objects.equals(p1, name1) && Objects.equals(p2, name2);
-                                    if (!samePlayers) {
-                                        messages.add("§0");
-                                        messages.add("§8§m                               §7 Players: §e" + p1 + " §7& §e" + p2);
-                                        if (!last) messages.add("§0");
-                                    }
-
-                                    String color = TradeLog.getColorByString(l.getMessage());
-                                    messages.add("§8" + l.getTimestamp().format(formatter) + " " + color + "» §7" + l.getMessage());
-
-                                    p1 = name1;
-                                    p2 = name2;
-                                }
-
-                                if (samePlayers) {
-                                    messages.add("§0");
-                                    messages.add("§8§m                               §7 Players: §e" + p1 + " §7& §e" + p2);
-                                }
+    private static void showLog(CommandSender sender, String label, String player, int page) {
+        try {
+            if (TradeLog.isEnabled()) {
+                Bukkit.getScheduler().runTaskAsynchronously(TradeSystem.getInstance(), () -> {
+                    if (TradeLogService.notConnected()) {
+                        sender.sendMessage(Lang.getPrefix() + Lang.get("TradeLog_Disabled", new Lang.P("label", label)));
+                        return;
+                    }
+
+                    List<TradeLog.Entry> log = TradeLogService.getLogMessages(player, page);
+                    if (log == null) log = new ArrayList<>();
+
+                    List<String> messages = new ArrayList<>();
+                    messages.add("§0");
+                    messages.add("§0");
+                    messages.add("§7§m                            §c §lTRADE LOG§7 §m                            ");
+                    messages.add("§0");
+
+                    if (log.isEmpty()) messages.add("  §c-");
+                    else {
+                        String p1 = null;
+                        String p2 = null;
+                        boolean samePlayers = false;
+
+                        for (int i = 0; i < log.size(); i++) {
+                            TradeLog.Entry l = log.get(i);
+                            boolean last = i + 1 == log.size();
+
+                            String name1 = l.getPlayer1Name();
+                            String name2 = l.getPlayer2Name();
+
+                            samePlayers = p1 == null || Objects.equals(p1, name1) && Objects.equals(p2, name2);
+                            if (!samePlayers) {
+                                messages.add("§0");
+                                messages.add("§8§m                               §7 Players: §e" + p1 + " §7& §e" + p2);
+                                if (!last) messages.add("§0");
                             }
 
-                            sender.sendMessage(messages.toArray(new String[0]));
-                        });
-                    } else {
-                        sender.sendMessage(Lang.getPrefix() + Lang.get("TradeLog_Disabled", new Lang.P("label", label)));
+                            String color = TradeLog.getColorByString(l.getMessage());
+                            messages.add("§8" + l.getTimestamp().format(formatter) + " " + color + "» §7" + l.getMessage());
+
+                            p1 = name1;
+                            p2 = name2;
+                        }
+
+                        if (samePlayers) {
+                            messages.add("§0");
+                            messages.add("§8§m                               §7 Players: §e" + p1 + " §7& §e" + p2);
+                        }
+
+                        messages.add("§0");
+                        // only a full page can be followed by another one
+                        if (log.size() == TradeLogService.PAGE_SIZE) messages.add("§7Page §e" + page + " §8- §7Next: §e/" + label + " " + player + " " + (page + 1));
+                        else messages.add("§7Page §e" + page);
                     }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
-                return false;
+
+                    sender.sendMessage(messages.toArray(new String[0]));
+                });
+            } else {
+                sender.sendMessage(Lang.getPrefix() + Lang.get("TradeLog_Disabled", new Lang.P("label", label)));
             }
-        });
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
     }
 }
@@ -1,14 +1,48 @@
 package de.codingair.tradesystem.spigot.extras.tradelog.repository;
 
 import de.codingair.tradesystem.spigot.extras.tradelog.TradeLog;
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeLogWriter;
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeRecord;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
 public interface TradeLogRepository {
 
-    void log(String player1, String playerTo2, String message);
+    /**
+     * Writes all lines in a single transaction. Will be called from the thread of the {@link TradeLogWriter}.
+     *
+     * @param lines The lines to write.
+     */
+    void log(@NotNull List<TradeLogWriter.Line> lines);
 
+    /**
+     * Writes each trade with its items and economy transfers in a single transaction. Will be called from the thread of the
+     * {@link TradeLogWriter}. Repositories without a structured schema ignore trades.
+     *
+     * @param records The trades to write.
+     */
+    default void logTrades(@NotNull List<TradeRecord> records) {
+    }
+
+    @Nullable
+    default List<TradeLog.Entry> getLogMessages(String playerName) {
+        return getLogMessages(playerName, TradeLog.Cursor.START, 40);
+    }
+
+    /**
+     * @param playerName The name of the player.
+     * @param before     Only entries older than this cursor will be returned. Use {@link TradeLog.Cursor#START} for the first page.
+     * @param limit      The maximum amount of entries.
+     * @return The entries of the player ordered from new to old. Null if the log could not be read.
+     */
     @Nullable
-    List<TradeLog.Entry> getLogMessages(String playerName);
+    List<TradeLog.Entry> getLogMessages(@NotNull String playerName, @NotNull TradeLog.Cursor before, int limit);
+
+    /**
+     * Releases all resources. Will be called after all pending lines were written.
+     */
+    default void close() {
+    }
 }
@@ -1,8 +1,10 @@
 package de.codingair.tradesystem.spigot.extras.tradelog.repository.adapters;
 
 import de.codingair.tradesystem.spigot.extras.tradelog.TradeLog;
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeLogWriter;
 import de.codingair.tradesystem.spigot.extras.tradelog.repository.TradeLogRepository;
 import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collections;
@@ -11,12 +13,14 @@ import java.util.List;
 public class BukkitTradeLogRepository implements TradeLogRepository {
 
     @Override
-    public void log(String player1, String player2, String message) {
-        Bukkit.getLogger().info("TradeLog [" + player1 + ", " + player2+ "] " + message);
+    public void log(@NotNull List<TradeLogWriter.Line> lines) {
+        for (TradeLogWriter.Line line : lines) {
+            Bukkit.getLogger().info("TradeLog [" + line.getPlayer1() + ", " + line.getPlayer2() + "] " + line.getMessage());
+        }
     }
 
     @Override
-    public @Nullable List<TradeLog.Entry> getLogMessages(String player) {
+    public @Nullable List<TradeLog.Entry> getLogMessages(@NotNull String player, @NotNull TradeLog.Cursor before, int limit) {
         return Collections.emptyList();
     }
 }
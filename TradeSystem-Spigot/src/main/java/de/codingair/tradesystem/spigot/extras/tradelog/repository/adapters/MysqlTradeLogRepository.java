@@ -1,6 +1,8 @@
 package de.codingair.tradesystem.spigot.extras.tradelog.repository.adapters;
 
 import de.codingair.tradesystem.spigot.extras.tradelog.TradeLog;
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeLogWriter;
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeRecord;
 import de.codingair.tradesystem.spigot.extras.tradelog.repository.TradeLogRepository;
 import de.codingair.tradesystem.spigot.utils.Supplier;
 import org.jetbrains.annotations.NotNull;
@@ -10,9 +12,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.Instant;
-import java.time.ZoneId;
-import java.util.ArrayList;
+import java.sql.Statement;
 import java.util.List;
 
 public class MysqlTradeLogRepository implements TradeLogRepository {
@@ -23,41 +23,60 @@ public class MysqlTradeLogRepository implements TradeLogRepository {
     }
 
     @Override
-    public void log(String player1, String player2, String message) {
+    public void log(@NotNull List<TradeLogWriter.Line> lines) {
         String sql = "INSERT INTO tradelog(player1, player2, message, timestamp) VALUES(?,?,?,?);";
 
         try (Connection con = this.connection.get(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, player1);
-            pstmt.setString(2, player2);
-            pstmt.setString(3, message);
-            pstmt.setLong(4, System.currentTimeMillis());
+            con.setAutoCommit(false);
 
-            pstmt.executeUpdate();
+            try {
+                for (TradeLogWriter.Line line : lines) {
+                    pstmt.setString(1, line.getPlayer1());
+                    pstmt.setString(2, line.getPlayer2());
+                    pstmt.setString(3, line.getMessage());
+                    pstmt.setLong(4, line.getTimestamp());
+                    pstmt.addBatch();
+                }
+
+                pstmt.executeBatch();
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     @Override
-    public @Nullable List<TradeLog.Entry> getLogMessages(String playerName) {
-        String sql = "SELECT id, player1, player2, message, timestamp FROM tradelog " +
-                "WHERE player1=? OR player2=? ORDER BY timestamp DESC LIMIT 40;";
+    public void logTrades(@NotNull List<TradeRecord> records) {
+        try (Connection con = this.connection.get();
+             PreparedStatement trades = con.prepareStatement(TradeRecordStatements.INSERT_TRADE, Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement items = con.prepareStatement(TradeRecordStatements.INSERT_ITEM);
+             PreparedStatement economy = con.prepareStatement(TradeRecordStatements.INSERT_ECONOMY)) {
+            con.setAutoCommit(false);
 
-        try (Connection con = this.connection.get(); PreparedStatement pstmt = con.prepareStatement(sql)) {
-            pstmt.setString(1, playerName);
-            pstmt.setString(2, playerName);
-            ResultSet rs = pstmt.executeQuery();
+            try {
+                TradeRecordStatements.write(records, trades, items, economy);
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public @Nullable List<TradeLog.Entry> getLogMessages(@NotNull String playerName, @NotNull TradeLog.Cursor before, int limit) {
+        try (Connection con = this.connection.get(); PreparedStatement pstmt = con.prepareStatement(TradeLogQueries.SELECT_PAGE)) {
+            TradeLogQueries.bindPage(pstmt, playerName, before, limit);
 
-            List<TradeLog.Entry> result = new ArrayList<>();
-            while (rs.next()) {
-                result.add(new TradeLog.Entry(
-                        rs.getString(2),
-                        rs.getString(3),
-                        rs.getString(4),
-                        Instant.ofEpochMilli(rs.getLong(5)).atZone(ZoneId.systemDefault()).toLocalDateTime()
-                ));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return TradeLogQueries.readEntries(rs);
             }
-            return result;
         } catch (SQLException e) {
             e.printStackTrace();
             return null;
@@ -1,62 +1,161 @@
 package de.codingair.tradesystem.spigot.extras.tradelog.repository.adapters;
 
 import de.codingair.tradesystem.spigot.extras.tradelog.TradeLog;
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeLogWriter;
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeRecord;
 import de.codingair.tradesystem.spigot.extras.tradelog.repository.TradeLogRepository;
 import de.codingair.tradesystem.spigot.utils.database.migrations.sqlite.SqlLiteConnection;
 import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.Instant;
-import java.time.ZoneId;
-import java.util.ArrayList;
+import java.sql.Statement;
 import java.util.List;
 
+/**
+ * Keeps one connection for writing and one read-only connection for queries open. Both connections cache their prepared statements. Log lines and
+ * trades are only written by the thread of the {@link TradeLogWriter}, so queries of /tradelog never wait for the file lock of a write.
+ */
 public class SqlLiteTradeLogRepository implements TradeLogRepository {
+    private static final String INSERT = "INSERT INTO tradelog(player1, player2, message, timestamp) VALUES(?,?,?,?)";
+
+    private final Object writeLock = new Object();
+    private Connection writer;
+    private PreparedStatement insert;
+    private PreparedStatement insertTrade;
+    private PreparedStatement insertItem;
+    private PreparedStatement insertEconomy;
+
+    private final Object readLock = new Object();
+    private Connection reader;
+    private PreparedStatement select;
+
+    @Override
+    public void log(@NotNull List<TradeLogWriter.Line> lines) {
+        synchronized (writeLock) {
+            try {
+                openWriter();
+
+                try {
+                    for (TradeLogWriter.Line line : lines) {
+                        insert.setString(1, line.getPlayer1());
+                        insert.setString(2, line.getPlayer2());
+                        insert.setString(3, line.getMessage());
+                        insert.setLong(4, line.getTimestamp());
+                        insert.addBatch();
+                    }
+
+                    insert.executeBatch();
+                    writer.commit();
+                } catch (SQLException e) {
+                    insert.clearBatch();
+                    writer.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                Bukkit.getLogger().severe(e.getMessage());
+                closeWriter();
+            }
+        }
+    }
 
     @Override
-    public void log(String player1, String player2, String message) {
-        String sql = "INSERT INTO tradelog(player1, player2, message, timestamp) VALUES(?,?,?,?)";
-
-        try (Connection conn = SqlLiteConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, player1);
-            pstmt.setString(2, player2);
-            pstmt.setString(3, message);
-            pstmt.setLong(4, System.currentTimeMillis());
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            Bukkit.getLogger().severe(e.getMessage());
+    public void logTrades(@NotNull List<TradeRecord> records) {
+        synchronized (writeLock) {
+            try {
+                openWriter();
+
+                try {
+                    TradeRecordStatements.write(records, insertTrade, insertItem, insertEconomy);
+                    writer.commit();
+                } catch (SQLException e) {
+                    insertItem.clearBatch();
+                    insertEconomy.clearBatch();
+                    writer.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                Bukkit.getLogger().severe(e.getMessage());
+                closeWriter();
+            }
         }
     }
 
+    private void openWriter() throws SQLException {
+        if (writer != null) return;
+
+        writer = SqlLiteConnection.connectWriter();
+        writer.setAutoCommit(false);
+        insert = writer.prepareStatement(INSERT);
+        insertTrade = writer.prepareStatement(TradeRecordStatements.INSERT_TRADE, Statement.RETURN_GENERATED_KEYS);
+        insertItem = writer.prepareStatement(TradeRecordStatements.INSERT_ITEM);
+        insertEconomy = writer.prepareStatement(TradeRecordStatements.INSERT_ECONOMY);
+    }
+
     @Override
-    public @Nullable List<TradeLog.Entry> getLogMessages(String playerName) {
-        String sql = "SELECT id, player1, player2, message, timestamp FROM tradelog " +
-                "WHERE player1=? OR player2=? ORDER BY timestamp DESC LIMIT 40;";
-
-        try (Connection conn = SqlLiteConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, playerName);
-            pstmt.setString(2, playerName);
-            ResultSet rs = pstmt.executeQuery();
-
-            List<TradeLog.Entry> result = new ArrayList<>();
-            while (rs.next()) {
-                result.add(new TradeLog.Entry(
-                        rs.getString(2),
-                        rs.getString(3),
-                        rs.getString(4),
-                        Instant.ofEpochMilli(rs.getLong(5)).atZone(ZoneId.systemDefault()).toLocalDateTime()
-                ));
+    public @Nullable List<TradeLog.Entry> getLogMessages(@NotNull String playerName, @NotNull TradeLog.Cursor before, int limit) {
+        synchronized (readLock) {
+            try {
+                if (reader == null) {
+                    reader = SqlLiteConnection.connectReader();
+                    select = reader.prepareStatement(TradeLogQueries.SELECT_PAGE);
+                }
+
+                TradeLogQueries.bindPage(select, playerName, before, limit);
+
+                try (ResultSet rs = select.executeQuery()) {
+                    return TradeLogQueries.readEntries(rs);
+                }
+            } catch (SQLException e) {
+                Bukkit.getLogger().severe(e.getMessage());
+                closeReader();
+                return null;
             }
-            return result;
-        } catch (SQLException e) {
-            Bukkit.getLogger().severe(e.getMessage());
-            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            closeWriter();
+        }
+
+        synchronized (readLock) {
+            closeReader();
+        }
+    }
+
+    private void closeWriter() {
+        close(insertTrade, null);
+        close(insertItem, null);
+        close(insertEconomy, null);
+        close(insert, writer);
+        insert = null;
+        insertTrade = null;
+        insertItem = null;
+        insertEconomy = null;
+        writer = null;
+    }
+
+    private void closeReader() {
+        close(select, reader);
+        select = null;
+        reader = null;
+    }
+
+    private static void close(@Nullable PreparedStatement statement, @Nullable Connection connection) {
+        try {
+            if (statement != null) statement.close();
+        } catch (SQLException ignored) {
+        }
+
+        try {
+            if (connection != null) connection.close();
+        } catch (SQLException ignored) {
         }
     }
 }
@@ -0,0 +1,74 @@
+package de.codingair.tradesystem.spigot.extras.tradelog.repository.adapters;
+
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeLog;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared queries of the SQL repositories to read the trade log page by page. Each player column is read in its own branch of a UNION ALL, so both
+ * branches are answered by a backwards range scan of the (player, timestamp) index which stops after one page. Pages are continued after the
+ * (timestamp, id) of the last entry instead of using an offset.
+ */
+class TradeLogQueries {
+    private static final String BRANCH = "SELECT id, player1, player2, message, timestamp FROM tradelog " +
+            "WHERE %s AND (timestamp<? OR timestamp=? AND id<?) ORDER BY timestamp DESC, id DESC LIMIT ?";
+
+    static final String SELECT_PAGE = "SELECT id, player1, player2, message, timestamp FROM (" + String.format(BRANCH, "player1=?") + ") p1 " +
+            "UNION ALL " +
+            "SELECT id, player1, player2, message, timestamp FROM (" + String.format(BRANCH, "player2=? AND player1<>?") + ") p2 " +
+            "ORDER BY timestamp DESC, id DESC LIMIT ?";
+
+    private TradeLogQueries() {
+    }
+
+    /**
+     * @param statement A statement of {@link #SELECT_PAGE}.
+     * @param player    The name of the player.
+     * @param before    Only entries older than this cursor will be returned.
+     * @param limit     The maximum amount of entries.
+     * @throws SQLException If the parameters could not be set.
+     */
+    static void bindPage(@NotNull PreparedStatement statement, @NotNull String player, @NotNull TradeLog.Cursor before, int limit) throws SQLException {
+        int i = 1;
+
+        statement.setString(i++, player);
+        i = bindCursor(statement, i, before, limit);
+
+        statement.setString(i++, player);
+        statement.setString(i++, player);
+        i = bindCursor(statement, i, before, limit);
+
+        statement.setInt(i, limit);
+    }
+
+    private static int bindCursor(@NotNull PreparedStatement statement, int i, @NotNull TradeLog.Cursor before, int limit) throws SQLException {
+        statement.setLong(i++, before.getTimestamp());
+        statement.setLong(i++, before.getTimestamp());
+        statement.setLong(i++, before.getId());
+        statement.setInt(i++, limit);
+        return i;
+    }
+
+    @NotNull
+    static List<TradeLog.Entry> readEntries(@NotNull ResultSet rs) throws SQLException {
+        List<TradeLog.Entry> result = new ArrayList<>();
+        while (rs.next()) {
+            long timestamp = rs.getLong(5);
+            result.add(new TradeLog.Entry(
+                    rs.getString(2),
+                    rs.getString(3),
+                    rs.getString(4),
+                    Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()).toLocalDateTime(),
+                    new TradeLog.Cursor(timestamp, rs.getLong(1))
+            ));
+        }
+        return result;
+    }
+}
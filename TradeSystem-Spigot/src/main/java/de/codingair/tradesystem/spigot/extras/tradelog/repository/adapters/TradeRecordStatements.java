@@ -0,0 +1,88 @@
+package de.codingair.tradesystem.spigot.extras.tradelog.repository.adapters;
+
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeRecord;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Shared statements of the SQL repositories to write {@link TradeRecord}s. Each trade row is inserted on its own to receive its generated key, while
+ * all items and economy transfers are written in one batch per table.
+ */
+class TradeRecordStatements {
+    static final String INSERT_TRADE = "INSERT INTO trades(trade_id, player1, player1_uuid, player2, player2_uuid, started, ended, outcome, reason, initiation_server) " +
+            "VALUES(?,?,?,?,?,?,?,?,?,?)";
+    static final String INSERT_ITEM = "INSERT INTO trade_items(trade, receiver, material, amount, item, timestamp) VALUES(?,?,?,?,?,?)";
+    static final String INSERT_ECONOMY = "INSERT INTO trade_economy(trade, receiver, currency, amount, timestamp) VALUES(?,?,?,?,?)";
+
+    private TradeRecordStatements() {
+    }
+
+    /**
+     * Must be called inside a transaction.
+     *
+     * @param records The trades to write.
+     * @param trades  A statement of {@link #INSERT_TRADE} which returns generated keys.
+     * @param items   A statement of {@link #INSERT_ITEM}.
+     * @param economy A statement of {@link #INSERT_ECONOMY}.
+     * @throws SQLException If a statement fails.
+     */
+    static void write(@NotNull List<TradeRecord> records, @NotNull PreparedStatement trades, @NotNull PreparedStatement items, @NotNull PreparedStatement economy) throws SQLException {
+        boolean hasItems = false, hasEconomy = false;
+
+        for (TradeRecord record : records) {
+            trades.setString(1, record.getTradeId().toString());
+            trades.setString(2, record.getPlayer(0));
+            setUniqueId(trades, 3, record.getUniqueId(0));
+            trades.setString(4, record.getPlayer(1));
+            setUniqueId(trades, 5, record.getUniqueId(1));
+            trades.setLong(6, record.getStarted());
+            trades.setLong(7, record.getEnded());
+            trades.setString(8, record.getOutcome().name());
+            trades.setString(9, record.getReason());
+            trades.setBoolean(10, record.isInitiationServer());
+            trades.executeUpdate();
+
+            long id;
+            try (ResultSet keys = trades.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("No id was generated for trade " + record.getTradeId() + ".");
+                id = keys.getLong(1);
+            }
+
+            for (TradeRecord.ItemTransfer item : record.getItems()) {
+                items.setLong(1, id);
+                items.setInt(2, item.getReceiver());
+                items.setString(3, item.getMaterial());
+                items.setInt(4, item.getAmount());
+                if (item.getData() == null) items.setNull(5, Types.BLOB);
+                else items.setBytes(5, item.getData());
+                items.setLong(6, record.getEnded());
+                items.addBatch();
+                hasItems = true;
+            }
+
+            for (TradeRecord.EconomyTransfer transfer : record.getEconomy()) {
+                economy.setLong(1, id);
+                economy.setInt(2, transfer.getReceiver());
+                economy.setString(3, transfer.getCurrency());
+                economy.setBigDecimal(4, transfer.getAmount());
+                economy.setLong(5, record.getEnded());
+                economy.addBatch();
+                hasEconomy = true;
+            }
+        }
+
+        if (hasItems) items.executeBatch();
+        if (hasEconomy) economy.executeBatch();
+    }
+
+    private static void setUniqueId(@NotNull PreparedStatement statement, int index, UUID uniqueId) throws SQLException {
+        if (uniqueId == null) statement.setNull(index, Types.CHAR);
+        else statement.setString(index, uniqueId.toString());
+    }
+}
@@ -13,14 +13,15 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 public class BukkitTrade extends Trade {
     private final Player[] players = new Player[2];
 
-    BukkitTrade(Player p0, Player p1, boolean initiationServer) {
-        super(p0.getName(), p1.getName(), initiationServer);
+    BukkitTrade(@NotNull UUID tradeId, Player p0, Player p1, boolean initiationServer) {
+        super(tradeId, p0.getName(), p0.getUniqueId(), p1.getName(), p1.getUniqueId(), initiationServer);
         this.players[0] = p0;
         this.players[1] = p1;
     }
@@ -0,0 +1,261 @@
+package de.codingair.tradesystem.spigot.trade;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of the free space of the 36 storage slots of a trader. The capacity is stored as the amount of empty slots and the remaining stack space
+ * per item kind (items which are similar to each other). This allows fit checks without copying and simulating the whole inventory.
+ * <p>
+ * The capacity is maintained incrementally: every slot change removes the old stack and adds the new one. Local inventories mark changed slots with
+ * {@link #markDirty(int)} and apply them lazily with {@link #update(Inventory)}.
+ * <p>
+ * A fit check is started with {@link #begin()}, filled with {@link #add(ItemStack)} and evaluated with {@link #fits()}.
+ */
+public class InventoryCapacity {
+    private static final int STORAGE_SIZE = 36;
+    private static final long ALL_SLOTS = (1L << STORAGE_SIZE) - 1;
+
+    private final ItemStack[] contents = new ItemStack[STORAGE_SIZE];
+    private final Key[] keys = new Key[STORAGE_SIZE];
+    private final Map<Key, Kind> kinds = new HashMap<>();
+    private int freeSlots = STORAGE_SIZE;
+    private long dirty = ALL_SLOTS;
+
+    // reusable buffers for fit checks
+    private final Map<Key, Integer> requestedIndex = new HashMap<>();
+    private Key[] requestedTypes = new Key[16];
+    private int[] requestedAmounts = new int[16];
+    private int requested = 0;
+
+    /**
+     * Applies the given inventory contents. Only slots which differ from the current state will be updated. Only the first 36 slots will be used.
+     *
+     * @param contents The current inventory contents.
+     */
+    public void setContents(@Nullable ItemStack @NotNull [] contents) {
+        for (int slot = 0; slot < STORAGE_SIZE; slot++) {
+            setItem(slot, slot < contents.length ? contents[slot] : null);
+        }
+
+        this.dirty = 0;
+    }
+
+    /**
+     * Applies all slots which were marked as dirty since the last update.
+     *
+     * @param inventory The inventory of the trader.
+     */
+    public void update(@NotNull Inventory inventory) {
+        long slots = this.dirty;
+        this.dirty = 0;
+
+        while (slots != 0) {
+            int slot = Long.numberOfTrailingZeros(slots);
+            slots &= slots - 1;
+            setItem(slot, inventory.getItem(slot));
+        }
+    }
+
+    /**
+     * Updates the capacity for a single slot by removing the previous stack and adding the new one.
+     *
+     * @param slot The storage slot (0-35).
+     * @param item The new item of this slot.
+     */
+    public void setItem(int slot, @Nullable ItemStack item) {
+        if (slot < 0 || slot >= STORAGE_SIZE) return;
+        ItemStack previous = this.contents[slot];
+
+        if (isEmpty(item)) {
+            if (previous == null) return;
+
+            remove(slot);
+            this.contents[slot] = null;
+            this.keys[slot] = null;
+            return;
+        }
+
+        if (previous != null && previous.isSimilar(item)) {
+            // same kind; only the stack space changes
+            if (previous.getAmount() == item.getAmount()) return;
+
+            Kind kind = this.kinds.get(this.keys[slot]);
+            kind.space -= space(previous);
+            previous.setAmount(item.getAmount());
+            kind.space += space(previous);
+            return;
+        }
+
+        if (previous != null) remove(slot);
+
+        ItemStack copy = item.clone();
+        this.contents[slot] = copy;
+        this.keys[slot] = new Key(copy);
+        insert(slot);
+    }
+
+    /**
+     * Marks a slot as changed. It will be applied with the next {@link #update(Inventory)}.
+     *
+     * @param slot The storage slot (0-35).
+     */
+    public void markDirty(int slot) {
+        if (slot < 0 || slot >= STORAGE_SIZE) return;
+        this.dirty |= 1L << slot;
+    }
+
+    /**
+     * Marks all slots as changed. Should be used if the changed slots are unknown.
+     */
+    public void markDirty() {
+        this.dirty = ALL_SLOTS;
+    }
+
+    public boolean isDirty() {
+        return dirty != 0;
+    }
+
+    public int getFreeSlots() {
+        return freeSlots;
+    }
+
+    /**
+     * Starts a new fit check.
+     */
+    public void begin() {
+        for (int i = 0; i < requested; i++) {
+            requestedTypes[i] = null;
+        }
+        requestedIndex.clear();
+        requested = 0;
+    }
+
+    /**
+     * Adds an item to the current fit check.
+     *
+     * @param item The item that should be added to the inventory.
+     */
+    public void add(@Nullable ItemStack item) {
+        if (isEmpty(item)) return;
+
+        Key key = new Key(item);
+        Integer index = requestedIndex.get(key);
+        if (index != null) {
+            requestedAmounts[index] += item.getAmount();
+            return;
+        }
+
+        if (requested == requestedTypes.length) {
+            requestedTypes = Arrays.copyOf(requestedTypes, requested * 2);
+            requestedAmounts = Arrays.copyOf(requestedAmounts, requested * 2);
+        }
+
+        requestedIndex.put(key, requested);
+        requestedTypes[requested] = key;
+        requestedAmounts[requested] = item.getAmount();
+        requested++;
+    }
+
+    /**
+     * Evaluates the current fit check. Items will fill up stacks of similar items first and use empty slots afterwards.
+     *
+     * @return True if all added items fit into the inventory.
+     */
+    public boolean fits() {
+        int neededSlots = 0;
+
+        for (int i = 0; i < requested; i++) {
+            Key type = requestedTypes[i];
+            int amount = requestedAmounts[i];
+
+            Kind kind = kinds.get(type);
+            if (kind != null) amount -= kind.space;
+
+            if (amount > 0) {
+                int max = Math.max(1, type.item.getMaxStackSize());
+                neededSlots += (amount + max - 1) / max;
+                if (neededSlots > freeSlots) break;
+            }
+        }
+
+        begin();
+        return neededSlots <= freeSlots;
+    }
+
+    private void insert(int slot) {
+        freeSlots--;
+
+        Kind kind = kinds.get(keys[slot]);
+        if (kind == null) {
+            kind = new Kind();
+            kinds.put(keys[slot], kind);
+        }
+
+        kind.stacks++;
+        kind.space += space(contents[slot]);
+    }
+
+    private void remove(int slot) {
+        freeSlots++;
+
+        Kind kind = kinds.get(keys[slot]);
+        if (kind == null) return;
+
+        kind.stacks--;
+        kind.space -= space(contents[slot]);
+        if (kind.stacks <= 0) kinds.remove(keys[slot]);
+    }
+
+    private static int space(@NotNull ItemStack item) {
+        return Math.max(0, item.getMaxStackSize() - item.getAmount());
+    }
+
+    private static boolean isEmpty(@Nullable ItemStack item) {
+        return item == null || item.getType() == Material.AIR || item.getAmount() <= 0;
+    }
+
+    /**
+     * Identifies an item kind. The hash is built from the type and the meta of the item; equality is decided by {@link ItemStack#isSimilar(ItemStack)}.
+     */
+    private static class Key {
+        private final ItemStack item;
+        private final int hash;
+
+        @SuppressWarnings ("deprecation")
+        private Key(@NotNull ItemStack item) {
+            this.item = item;
+
+            int hash = item.getType().hashCode();
+            hash = 31 * hash + item.getDurability();
+            if (item.hasItemMeta()) hash = 31 * hash + item.getItemMeta().hashCode();
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return hash == key.hash && item.isSimilar(key.item);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class Kind {
+        private int stacks = 0;
+        private int space = 0;
+    }
+}
@@ -8,10 +8,12 @@ import de.codingair.codingapi.player.gui.inventory.v2.exceptions.IsWaitingExcept
 import de.codingair.codingapi.player.gui.inventory.v2.exceptions.NoPageException;
 import de.codingair.packetmanagement.packets.impl.BooleanPacket;
 import de.codingair.tradesystem.proxy.packets.*;
+import de.codingair.tradesystem.proxy.packets.utils.ItemAssembler;
 import de.codingair.tradesystem.spigot.TradeSystem;
 import de.codingair.tradesystem.spigot.trade.gui.TradingGUI;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.TradeIcon;
 import de.codingair.tradesystem.spigot.transfer.utils.ItemStackUtils;
+import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
@@ -20,7 +22,12 @@ import org.jetbrains.annotations.Nullable;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
@@ -30,10 +37,20 @@ public class ProxyTrade extends Trade {
     private ItemStack[] sent;
     private ItemStack[] received;
     private final ItemStack[] otherInventory = new ItemStack[36];
+
+    // versioned inventory synchronization; all versions are only accessed on the main thread
+    private int inventoryVersion = 0;
+    private ItemStack[] sentInventory = null;
+    private int receivedVersion = 0;
+    private boolean resyncRequested = false;
+    private int receivingVersion = 0;
+    private final Map<Integer, ItemStack> receivingItems = new LinkedHashMap<>();
+    private final ItemAssembler inventoryAssembler = new ItemAssembler();
+    private final ItemAssembler itemAssembler = new ItemAssembler();
     private final CompletableFuture<Boolean> finishCheck = new CompletableFuture<>();
 
-    public ProxyTrade(@NotNull Player player, @NotNull String other, boolean initiationServer) {
-        super(player.getName(), other, initiationServer);
+    public ProxyTrade(@NotNull UUID tradeId, @NotNull Player player, @NotNull String other, boolean initiationServer) {
+        super(tradeId, player.getName(), player.getUniqueId(), other, null, initiationServer);
         this.player = player;
         this.other = other;
     }
@@ -48,6 +65,7 @@ public class ProxyTrade extends Trade {
 
     public void receiveItemData(int slotId, @Nullable ItemStack item) {
         this.received[slotId] = item;
+        shulkerContents.invalidate(0, otherSlots.get(slotId));
         guis[0].setItem(otherSlots.get(slotId), item);
     }
 
@@ -105,32 +123,130 @@ public class ProxyTrade extends Trade {
         TradeSystem.proxyHandler().send(packet, this.player);
     }
 
+    /**
+     * Sends all inventory slots which were changed since the last sent version in a single packet. A full snapshot will be sent if no version was
+     * sent yet or the trade partner requested a resync.
+     */
     public void synchronizeInventory() {
         if (guis[0] == null) return;  // we might have already finished this trade
 
         ItemStack[] contents = player.getInventory().getContents();
+        ItemStack[] snapshot = new ItemStack[36];
+        ItemStack[] base = this.sentInventory;
+
+        PlayerInventoryPacket packet = PlayerInventoryPacket.update(player.getName(), other, inventoryVersion + 1, base == null ? 0 : inventoryVersion);
+        boolean changed = base == null;
 
-        for (int i = 0; i < 36; i++) {
-            Map<String, Object> data = contents[i] == null ? null : ItemStackUtils.serializeItemStack(contents[i]);
-            try {
-                PlayerInventoryPacket packet = new PlayerInventoryPacket(player.getName(), other, data, i);
-                TradeSystem.proxyHandler().send(packet, this.player);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        try {
+            for (int i = 0; i < 36; i++) {
+                ItemStack item = contents[i] == null || contents[i].getType() == Material.AIR ? null : contents[i];
+                snapshot[i] = item == null ? null : item.clone();
+
+                if (base == null || !Objects.equals(base[i], item)) {
+                    packet.setItem(i, item == null ? null : ItemStackUtils.serializeItemStack(item));
+                    changed = true;
+                }
             }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (!changed) return;
+
+        inventoryVersion++;
+        sentInventory = snapshot;
+
+        for (PlayerInventoryPacket part : packet.split(TradeSystem.man().getMaxPacketSize())) {
+            TradeSystem.proxyHandler().send(part, this.player);
         }
     }
 
+    /**
+     * Applies an inventory update of the trade partner. Updates which were split into several parts will be applied after receiving the last part.
+     * Overflowing items will be checked once after all slots were applied.
+     *
+     * @param type    The type of the update.
+     * @param version The version of the update.
+     * @param base    The version the changes are based on.
+     * @param items   All changed slots of this part.
+     * @param last    False, if more parts of this version will follow.
+     */
+    public void receiveInventory(@NotNull PlayerInventoryPacket.Type type, int version, int base, @NotNull Map<Integer, ItemStack> items, boolean last) {
+        if (version <= receivedVersion) return;  // outdated
+
+        if (version != receivingVersion) {
+            receivingVersion = version;
+            receivingItems.clear();
+        }
+
+        receivingItems.putAll(items);
+        if (!last) return;
+
+        items = new HashMap<>(receivingItems);
+        receivingItems.clear();
+
+        if (type == PlayerInventoryPacket.Type.DELTA && base != receivedVersion) {
+            // the changes are based on a version we did not apply; request a snapshot once and drop all deltas until it arrives
+            if (!resyncRequested) {
+                resyncRequested = true;
+                TradeSystem.proxyHandler().send(PlayerInventoryPacket.resync(player.getName(), other, receivedVersion), this.player);
+            }
+            return;
+        }
+
+        boolean snapshot = type == PlayerInventoryPacket.Type.SNAPSHOT;
+        if (snapshot) Arrays.fill(this.otherInventory, null);
+        for (Map.Entry<Integer, ItemStack> e : items.entrySet()) {
+            int slot = e.getKey();
+            if (slot < 0 || slot >= this.otherInventory.length) continue;
+
+            this.otherInventory[slot] = e.getValue();
+            if (!snapshot) this.capacities[1].setItem(slot, e.getValue());
+        }
+
+        // a snapshot only changes the slots which differ from the applied inventory
+        if (snapshot) this.capacities[1].setContents(this.otherInventory);
+        this.receivedVersion = version;
+        if (snapshot) this.resyncRequested = false;
+        cancelItemOverflow(0);
+    }
+
+    /**
+     * Sends a full snapshot since the trade partner could not apply a delta.
+     */
+    public void receiveResyncRequest() {
+        this.sentInventory = null;
+        synchronizeInventory();
+    }
+
     private void synchronizeItem(int slotId, @Nullable ItemStack item) {
         try {
             TradeItemUpdatePacket packet = new TradeItemUpdatePacket(player.getName(), other, ItemStackUtils.serializeItemStack(item), (byte) slotId);
-            TradeSystem.proxyHandler().send(packet, this.player);
+            for (TradeItemUpdatePacket part : packet.split(TradeSystem.man().getMaxPacketSize())) {
+                TradeSystem.proxyHandler().send(part, this.player);
+            }
             sent[slotId] = item == null ? null : item.clone();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * @return The assembler for fragments of inventory items of the trade partner.
+     */
+    @NotNull
+    public ItemAssembler getInventoryAssembler() {
+        return inventoryAssembler;
+    }
+
+    /**
+     * @return The assembler for fragments of offered items of the trade partner.
+     */
+    @NotNull
+    public ItemAssembler getItemAssembler() {
+        return itemAssembler;
+    }
+
     @Nullable
     private ItemStack getSent(int slotId) {
         return sent[slotId];
@@ -232,10 +348,6 @@ public class ProxyTrade extends Trade {
         return new PlayerInventory(this.otherInventory);
     }
 
-    public void setDisplayItem(int slot, @Nullable ItemStack item) {
-        this.otherInventory[slot] = item;
-    }
-
     @Override
     protected void informTransition(@NotNull TradeIcon icon, int otherId) {
         if (otherId == 1) return;
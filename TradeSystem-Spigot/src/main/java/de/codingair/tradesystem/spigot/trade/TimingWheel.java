@@ -0,0 +1,237 @@
+package de.codingair.tradesystem.spigot.trade;
+
+import de.codingair.tradesystem.spigot.TradeSystem;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A hierarchical timing wheel which executes delayed and repeating tasks with a single repeating Bukkit task. Each level consists of 64 buckets. A
+ * bucket of a higher level covers a whole rotation of the level below and will be cascaded into the lower levels when its time has come. Scheduling
+ * and cancelling a task are constant time operations.
+ * <p>
+ * All methods must be called on the main thread.
+ */
+public class TimingWheel {
+    private static final int BITS = 6;
+    private static final int SIZE = 1 << BITS;
+    private static final int MASK = SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY = (1L << (BITS * LEVELS)) - 1;
+
+    private final Bucket[][] wheels = new Bucket[LEVELS][SIZE];
+    private long tick = 0;
+    private int pending = 0;
+    private BukkitTask task = null;
+
+    public TimingWheel() {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < SIZE; i++) {
+                wheels[level][i] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * Schedules a task which will be executed once.
+     *
+     * @param delay    The delay in ticks. Values smaller than 1 will be executed on the next tick.
+     * @param runnable The task to execute.
+     * @return A handle which can be used to cancel the task.
+     */
+    @NotNull
+    public Timeout schedule(long delay, @NotNull Runnable runnable) {
+        return schedule(delay, 0, runnable);
+    }
+
+    /**
+     * Schedules a task which will be executed repeatedly until it has been cancelled.
+     *
+     * @param delay    The delay in ticks until the first execution. Values smaller than 1 will be executed on the next tick.
+     * @param period   The period in ticks between two executions. Values smaller than 1 will be executed every tick.
+     * @param runnable The task to execute.
+     * @return A handle which can be used to cancel the task.
+     */
+    @NotNull
+    public Timeout scheduleRepeating(long delay, long period, @NotNull Runnable runnable) {
+        return schedule(delay, Math.max(1, period), runnable);
+    }
+
+    @NotNull
+    private Timeout schedule(long delay, long period, @NotNull Runnable runnable) {
+        Timeout timeout = new Timeout(this, runnable, period);
+        timeout.deadline = tick + Math.max(1, delay);
+        insert(timeout);
+        pending++;
+        start();
+        return timeout;
+    }
+
+    /**
+     * Drops all scheduled tasks and stops the repeating Bukkit task.
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        for (Bucket[] wheel : wheels) {
+            for (Bucket bucket : wheel) {
+                Timeout timeout;
+                while ((timeout = bucket.poll()) != null) {
+                    timeout.cancelled = true;
+                }
+            }
+        }
+
+        pending = 0;
+    }
+
+    /**
+     * @return The amount of scheduled tasks.
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    private void start() {
+        if (task == null) task = Bukkit.getScheduler().runTaskTimer(TradeSystem.getInstance(), this::advance, 1, 1);
+    }
+
+    private void advance() {
+        tick++;
+
+        // cascade all higher levels which completed a rotation, starting with the highest one
+        int level = 0;
+        while (level + 1 < LEVELS && (tick & ((1L << (BITS * (level + 1))) - 1)) == 0) level++;
+
+        for (; level > 0; level--) {
+            Bucket bucket = wheels[level][(int) ((tick >> (BITS * level)) & MASK)];
+
+            Timeout timeout;
+            while ((timeout = bucket.poll()) != null) {
+                insert(timeout);
+            }
+        }
+
+        Bucket bucket = wheels[0][(int) (tick & MASK)];
+        Timeout timeout;
+        while ((timeout = bucket.poll()) != null) {
+            pending--;
+
+            try {
+                timeout.runnable.run();
+            } catch (Throwable t) {
+                t.printStackTrace();
+            }
+
+            if (timeout.period > 0 && !timeout.cancelled) {
+                timeout.deadline = tick + timeout.period;
+                insert(timeout);
+                pending++;
+            }
+        }
+
+        // no need to keep the task alive without any work
+        if (pending == 0 && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void insert(@NotNull Timeout timeout) {
+        // tasks beyond the last level wait in the highest level and will be cascaded again later
+        long deadline = Math.min(Math.max(timeout.deadline, tick), tick + MAX_DELAY);
+        long delta = deadline - tick;
+
+        int level = 0;
+        while (level + 1 < LEVELS && delta >= (1L << (BITS * (level + 1)))) level++;
+
+        wheels[level][(int) ((deadline >> (BITS * level)) & MASK)].add(timeout);
+    }
+
+    private void remove(@NotNull Timeout timeout) {
+        if (timeout.bucket == null) return;
+        timeout.bucket.unlink(timeout);
+        pending--;
+    }
+
+    /**
+     * A handle of a scheduled task.
+     */
+    public static class Timeout {
+        private final TimingWheel wheel;
+        private final Runnable runnable;
+        private final long period;
+        private long deadline;
+        private boolean cancelled = false;
+
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(@NotNull TimingWheel wheel, @NotNull Runnable runnable, long period) {
+            this.wheel = wheel;
+            this.runnable = runnable;
+            this.period = period;
+        }
+
+        /**
+         * Cancels this task. A cancelled task will not be executed anymore.
+         */
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            wheel.remove(this);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return The remaining ticks until the next execution.
+         */
+        public long getRemainingTicks() {
+            return Math.max(0, deadline - wheel.tick);
+        }
+    }
+
+    private static class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(@NotNull Timeout timeout) {
+            if (timeout.cancelled) return;
+
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+
+            if (tail == null) head = timeout;
+            else tail.next = timeout;
+            tail = timeout;
+        }
+
+        @Nullable
+        private Timeout poll() {
+            Timeout timeout = head;
+            if (timeout != null) unlink(timeout);
+            return timeout;
+        }
+
+        private void unlink(@NotNull Timeout timeout) {
+            if (timeout.prev == null) head = timeout.next;
+            else timeout.prev.next = timeout.next;
+
+            if (timeout.next == null) tail = timeout.prev;
+            else timeout.next.prev = timeout.prev;
+
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+}
@@ -16,11 +16,15 @@ import de.codingair.tradesystem.spigot.events.TradeItemEvent;
 import de.codingair.tradesystem.spigot.events.TradeReportEvent;
 import de.codingair.tradesystem.spigot.extras.tradelog.TradeLog;
 import de.codingair.tradesystem.spigot.extras.tradelog.TradeLogService;
+import de.codingair.tradesystem.spigot.extras.tradelog.TradeRecord;
 import de.codingair.tradesystem.spigot.trade.gui.TradingGUI;
 import de.codingair.tradesystem.spigot.trade.gui.layout.Pattern;
 import de.codingair.tradesystem.spigot.trade.gui.layout.TradeLayout;
 import de.codingair.tradesystem.spigot.trade.gui.layout.registration.IconHandler;
+import de.codingair.tradesystem.spigot.trade.gui.layout.registration.TransitionDispatcher;
+import de.codingair.tradesystem.spigot.trade.gui.layout.shulker.ShulkerContentCache;
 import de.codingair.tradesystem.spigot.trade.gui.layout.shulker.ShulkerPeekGUI;
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.MultiTradeIcon;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.TradeIcon;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.Transition;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.feedback.FinishResult;
@@ -28,23 +32,20 @@ import de.codingair.tradesystem.spigot.trade.gui.layout.types.feedback.IconResul
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.basic.ShowStatusIcon;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.basic.StatusIcon;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.basic.TradeSlot;
-import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.basic.TradeSlotOther;
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.economy.BalanceCache;
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.economy.EconomyIcon;
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.economy.EconomySettlementQueue;
+import de.codingair.tradesystem.spigot.trade.journal.SettlementJournal;
 import de.codingair.tradesystem.spigot.utils.Lang;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerPickupItemEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Range;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
@@ -52,27 +53,45 @@ import java.util.stream.Stream;
 
 public abstract class Trade {
     protected final String[] players = new String[2];
+    protected final UUID[] uniqueIds = new UUID[2];  //null for players on other servers
     protected final boolean initiationServer;
     protected final TradeLayout[] layout = new TradeLayout[2];
     protected final TradingGUI[] guis = new TradingGUI[2];
     protected final List<Integer> slots = new ArrayList<>();
     protected final List<Integer> otherSlots = new ArrayList<>();
+    protected final BitSet[] dirtySlots = new BitSet[] {new BitSet(), new BitSet()};  //slot ids whose offered item might have changed since the last update
+    protected int[] slotIds;  //inventory slot -> slot id (-1 if the slot cannot hold items)
+    protected final InventoryCapacity[] capacities = new InventoryCapacity[] {new InventoryCapacity(), new InventoryCapacity()};
+    protected final ShulkerContentCache shulkerContents = new ShulkerContentCache();
 
     protected final boolean[] ready = new boolean[] {false, false};
     protected final boolean[] pause = new boolean[] {false, false};
     protected final boolean[] cursor = new boolean[] {false, false};
     protected final boolean[] waitForPickup = new boolean[] {false, false}; //field to wait for a pickup event (e.g. when players holding items with their cursor)
+    protected final boolean[] pickedUp = new boolean[] {false, false}; //field to balance items once per tick after picking up items
+    protected final boolean[] checkCursor = new boolean[] {false, false}; //field to check the cursor once per tick after a click
+    protected final boolean[] checkOverflow = new boolean[] {false, false}; //field to check the items of the trade partner after the cursor check
 
     protected Pattern pattern;
-    protected Listener pickupListener;
-    protected BukkitRunnable countdown = null;
+    protected TimingWheel.Timeout countdown = null;
     protected int countdownTicks = 0;
+    protected final BalanceCache balanceCache = new BalanceCache();
+    protected CompletableFuture<Boolean> economySettlement = null;
+    protected boolean settling = false;  //the economy transactions are being executed
+    protected long settlement = -1;
     protected boolean cancelling = false;
+    protected final TradeRecord record;
 
-    protected Trade(String player0, String player1, boolean initiationServer) {
+    protected Trade(@NotNull UUID tradeId, @NotNull String player0, @Nullable UUID uniqueId0, @NotNull String player1, @Nullable UUID uniqueId1, boolean initiationServer) {
         this.initiationServer = initiationServer;
         this.players[0] = player0;
         this.players[1] = player1;
+        this.uniqueIds[0] = uniqueId0;
+        this.uniqueIds[1] = uniqueId1;
+
+        // the initiator is always the first player of the record
+        int initiator = initiationServer ? 0 : 1;
+        this.record = new TradeRecord(tradeId, players[initiator], uniqueIds[initiator], players[1 - initiator], uniqueIds[1 - initiator], initiationServer);
     }
 
     /**
@@ -181,7 +200,6 @@ public abstract class Trade {
     void start() {
         buildPattern();     // Build pattern first to
         initializeGUIs();   // use it here for the inventory size.
-        startListeners();
         startGUI();
         playStartSound();
     }
@@ -195,28 +213,14 @@ public abstract class Trade {
     }
 
     private void buildSlots() {
+        // pre-sorted by the pattern
         slots.addAll(pattern.getSlotsOf(TradeSlot.class));
-        Collections.sort(slots);
-
-        //Sort other slots in a way that the trade layout is symmetrically.
-        otherSlots.addAll(pattern.getSlotsOf(TradeSlotOther.class));
-        otherSlots.sort((o1, o2) -> {
-            int row1 = o1 / 9;
-            int row2 = o2 / 9;
-
-            if (row1 != row2) return Integer.compare(row1, row2);
-
-            //reverse
-            return Integer.compare(o2, o1);
-        });
-    }
-
-    private void startListeners() {
-        Bukkit.getPluginManager().registerEvents(this.pickupListener = getPickUpListener(), TradeSystem.getInstance());
+        otherSlots.addAll(pattern.getOtherTradeSlots());
+        slotIds = pattern.getTradeSlotIds();
     }
 
     /**
-     * Update all displayed items on both sides (i.e. the items that one receive).
+     * Update all displayed items on both sides (i.e. the items that one receive). Only slots which were marked as dirty will be compared.
      *
      * @return True if something has changed.
      */
@@ -225,23 +229,32 @@ public abstract class Trade {
 
         if (isActive()) {
             for (int id = 0; id < 2; id++) {
-                if (guis[id] == null) continue;
+                BitSet dirty = dirtySlots[id];
+                if (guis[id] == null) {
+                    dirty.clear();
+                    continue;
+                }
 
                 int otherId = getOtherId(id);
 
                 // update displayed items on other gui
-                for (int slotId = 0; slotId < slots.size(); slotId++) {
+                for (int slotId = dirty.nextSetBit(0); slotId >= 0; slotId = dirty.nextSetBit(slotId + 1)) {
                     ItemStack item = guis[id].getItem(slots.get(slotId));
                     ItemStack other = getCurrentDisplayedItem(otherId, slotId);
 
                     if (!Objects.equals(item, other)) {
                         change = true;
+                        shulkerContents.invalidate(otherId, otherSlots.get(slotId));
                         updateDisplayItem(otherId, slotId, item);
-                        onTradeOfferChange(false);
                     }
                 }
+
+                dirty.clear();
             }
 
+            // revoke ready states only once per update
+            if (change) onTradeOfferChange(false);
+
             // update status icons after all items were updated
             for (int id = 0; id < 2; id++) {
                 if (guis[id] == null) continue;
@@ -252,6 +265,45 @@ public abstract class Trade {
         return change;
     }
 
+    /**
+     * Marks the given trade slot as changed. Its item will be compared and forwarded to the trade partner on the next update.
+     *
+     * @param id   The id of the player who owns the slot.
+     * @param slot The inventory slot.
+     */
+    public void markDirty(int id, int slot) {
+        if (id < 0 || slot < 0 || slot >= slotIds.length) return;
+
+        int slotId = slotIds[slot];
+        if (slotId >= 0) {
+            dirtySlots[id].set(slotId);
+            shulkerContents.invalidate(id, slot);
+        }
+    }
+
+    /**
+     * Marks all trade slots of the given player as changed. Useful for actions which can touch several slots at once.
+     *
+     * @param id The id of the player who owns the slots.
+     */
+    public void markDirty(int id) {
+        if (id < 0) return;
+        dirtySlots[id].set(0, slots.size());
+        shulkerContents.invalidate(id);
+    }
+
+    /**
+     * Cannot be used in Minecraft v1.10 and below.
+     *
+     * @param player The player who views the item.
+     * @param slot   The slot of the item in the trade GUI of the player.
+     * @param item   The current item of the slot.
+     * @return The cached contents of the shulker box or null if the item is not a shulker box. Must not be modified.
+     */
+    public @Nullable ItemStack @Nullable [] getShulkerContents(@NotNull Player player, int slot, @Nullable ItemStack item) {
+        return shulkerContents.getContents(getId(player), slot, item);
+    }
+
     /**
      * Called when an offer has changed.
      *
@@ -292,14 +344,57 @@ public abstract class Trade {
         });
         else if (countdown != null) {
             playCountDownStopSound();
-            countdown.cancel();
-            countdownTicks = 0;
-            countdown = null;
+            stopCountdown();
             synchronizeTitle();
         }
 
         // update inventory a tick later to fix some visualization bugs
-        Bukkit.getScheduler().runTaskLater(TradeSystem.getInstance(), () -> this.getViewers().forEach(Player::updateInventory), 1);
+        TradeSystem.man().getUpdateScheduler().requestSync(this);
+    }
+
+    /**
+     * Executed by the {@link TradeUpdateScheduler} once per tick if at least one update was requested.
+     */
+    void flushUpdate() {
+        for (int id = 0; id < 2; id++) {
+            Player player = getPlayer(id);
+
+            if (checkCursor[id]) {
+                checkCursor[id] = false;
+                if (player != null) {
+                    ItemStack cursor = player.getItemOnCursor();
+                    this.cursor[id] = cursor != null && cursor.getType() != Material.AIR;
+                }
+                waitForPickup[id] = false;
+
+                if (checkOverflow[id]) {
+                    checkOverflow[id] = false;
+                    cancelItemOverflow(getOtherId(id));
+                }
+            }
+
+            if (!pickedUp[id]) continue;
+            pickedUp[id] = false;
+
+            if (player != null && isActive()) onItemPickUp(player, id);
+        }
+
+        update();
+    }
+
+    /**
+     * Blocks pickups of the given player until their cursor was checked with the next update.
+     *
+     * @param player        The clicking player.
+     * @param checkOverflow True, if the items of the trade partner should be checked for overflow afterwards.
+     */
+    public void waitForPickup(@NotNull Player player, boolean checkOverflow) {
+        int id = getId(player);
+        this.waitForPickup[id] = true;
+        this.checkCursor[id] = true;
+        if (checkOverflow) this.checkOverflow[id] = true;
+
+        TradeSystem.man().getUpdateScheduler().requestUpdate(this);
     }
 
     private boolean setReadyState(int id, boolean ready) {
@@ -320,12 +415,13 @@ public abstract class Trade {
     }
 
     /**
-     * Update the trade in a few ticks.
+     * Update the trade in a few ticks. Updates for the next tick will be merged by the {@link TradeUpdateScheduler}.
      *
      * @param delay The delay in ticks.
      */
     public void updateLater(long delay) {
-        Bukkit.getScheduler().runTaskLater(TradeSystem.getInstance(), this::update, delay);
+        if (delay <= 1) TradeSystem.man().getUpdateScheduler().requestUpdate(this);
+        else Bukkit.getScheduler().runTaskLater(TradeSystem.getInstance(), this::update, delay);
     }
 
     /**
@@ -376,39 +472,112 @@ public abstract class Trade {
             }
 
             return true;
-        }).thenCompose(ready -> ready ? canFinish() : CompletableFuture.completedFuture(false)).thenApply(ready -> {
+        }).thenCompose(ready -> ready ? canFinish() : CompletableFuture.completedFuture(false)).thenCompose(ready -> {
             if (!ready) {
                 callEconomyError();
-                return false;
+                return CompletableFuture.completedFuture(false);
             }
 
-            boolean logFinish = false;
-            boolean[] droppedItems = new boolean[2];
-            TradeResult[] results = createResults();
+            // money must be transferred before any item is exchanged
+            return settleEconomy().thenApply(settled -> {
+                if (!settled) {
+                    callEconomyError();
+                    TradeSystem.man().getSettlementJournal().rollback(this.settlement);
+                    return false;
+                }
 
-            // exchange goods
-            for (int id = 0; id < 2; id++) {
-                Player player = getPlayer(id);
-                if (player == null) continue;
+                exchangeGoods();
+                return true;
+            });
+        });
+    }
 
-                boolean initiator = isInitiator(player, id);
-                droppedItems[id] = exchangeItems(player, id, initiator);
-                exchangeOtherGoods(player);
+    /**
+     * Executes the economy transactions of all local players as one batch. If a transaction fails, the batch reverts all previous transactions.
+     *
+     * @return A future which will be completed on the server thread with true if all transactions were successful.
+     */
+    @NotNull
+    private CompletableFuture<Boolean> settleEconomy() {
+        EconomySettlementQueue.Batch batch = new EconomySettlementQueue.Batch("between " + this.players[0] + " and " + this.players[1]);
+
+        for (int id = 0; id < 2; id++) {
+            Player player = getPlayer(id);
+            if (player == null) continue;
+
+            Player other = getOther(player).orElse(null);
+            String othersName = getOther(player.getName());
 
-                if (initiator) logFinish = true;
+            for (TradeIcon icon : layout[id].getIcons()) {
+                if (icon instanceof MultiTradeIcon) icon = ((MultiTradeIcon) icon).currentTradeIcon(this, player, other, othersName);
+                if (icon instanceof EconomyIcon) ((EconomyIcon<?>) icon).prepareSettlement(this, player, batch);
             }
+        }
 
-            // finish trade
-            for (int id = 0; id < 2; id++) {
-                Player player = getPlayer(id);
-                postFinish(player, id, droppedItems[id], results[id]);
+        // journal the transfers first to be able to return the offered items after a crash
+        SettlementJournal journal = TradeSystem.man().getSettlementJournal();
+        this.settlement = journal.begin(createSettlementReceivers(), batch.getTransfers());
+
+        CompletableFuture<Boolean> settled = new CompletableFuture<>();
+        this.settling = true;
+        this.economySettlement = TradeSystem.man().getEconomySettlementQueue().submit(batch);
+        this.economySettlement.whenComplete((success, t) -> {
+            if (t != null) t.printStackTrace();
+            boolean result = t == null && success;
+
+            TradeSystem.man().getEconomySettlementQueue().complete(() -> {
+                this.settling = false;
+                if (result) journal.settled(this.settlement);
+                settled.complete(result);
+            });
+        });
+
+        return settled;
+    }
+
+    /**
+     * Exchanges all items and other goods after the economy transactions were settled.
+     */
+    private void exchangeGoods() {
+        boolean logFinish = false;
+        boolean[] droppedItems = new boolean[2];
+        TradeResult[] results = createResults();
+
+        SettlementJournal journal = TradeSystem.man().getSettlementJournal();
+
+        for (int id = 0; id < 2; id++) {
+            Player player = getPlayer(id);
+            if (player == null) continue;
+
+            boolean initiator = isInitiator(player, id);
+            if (player.isOnline()) {
+                droppedItems[id] = exchangeItems(player, id, initiator);
+                journal.delivered(settlement, player.getUniqueId());
+            } else {
+                // the player left while the economy was settled; hand out the items on the next join
+                for (int slotId = 0; slotId < slots.size(); slotId++) removeReceivedItem(id, slotId);
+                journal.defer(settlement, player.getUniqueId());
             }
+            exchangeOtherGoods(player);
 
-            if (logFinish) TradeLogService.logLater(this.players[0], this.players[1], TradeLog.FINISHED.get(), 10);
+            if (initiator) logFinish = true;
+        }
 
-            closeTrade(results);
-            return true;
-        });
+        journal.commit(settlement);
+
+        // finish trade
+        for (int id = 0; id < 2; id++) {
+            Player player = getPlayer(id);
+            postFinish(player, id, droppedItems[id], results[id]);
+        }
+
+        if (logFinish) TradeLogService.logLater(this.players[0], this.players[1], TradeLog.FINISHED.get(), 10);
+
+        // every server records the goods its own players received
+        record.end(TradeRecord.Outcome.FINISHED, null);
+        TradeLogService.logTrade(record);
+
+        closeTrade(results);
     }
 
     @NotNull
@@ -417,45 +586,83 @@ public abstract class Trade {
 
         int interval = TradeSystem.man().getCountdownInterval();
         int repetitions = TradeSystem.man().getCountdownRepetitions();
-        this.countdown = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!isActive()) {
-                    this.cancel();
-                    countdownTicks = 0;
-                    countdown = null;
-                    return;
-                }
+        snapshotBalances();
 
-                if (!ready[0] || !ready[1]) {
-                    this.cancel();
-                    Trade.this.getViewers().forEach(p -> TradeSystem.man().playCountdownStopSound(p));
-                    countdownTicks = 0;
-                    countdown = null;
-                    guis().forEach(TradingGUI::synchronizeTitle);
-                    return;
-                }
+        this.countdown = TradeSystem.man().getTimingWheel().scheduleRepeating(0, interval, () -> {
+            if (!isActive()) {
+                stopCountdown();
+                return;
+            }
 
-                if (countdownTicks == repetitions) {
-                    future.complete(null);
-                    this.cancel();
-                    countdownTicks = 0;
-                    countdown = null;
-                    return;
-                } else {
-                    guis().forEach(TradingGUI::synchronizeTitle);
-                    Trade.this.getViewers().forEach(p -> TradeSystem.man().playCountdownTickSound(p));
-                }
+            if (!ready[0] || !ready[1]) {
+                stopCountdown();
+                getViewers().forEach(p -> TradeSystem.man().playCountdownStopSound(p));
+                guis().forEach(TradingGUI::synchronizeTitle);
+                return;
+            }
 
-                countdownTicks++;
+            if (countdownTicks == repetitions) {
+                future.complete(null);
+                stopCountdown();
+                return;
+            } else {
+                guis().forEach(TradingGUI::synchronizeTitle);
+                getViewers().forEach(p -> TradeSystem.man().playCountdownTickSound(p));
             }
-        };
 
-        this.countdown.runTaskTimer(TradeSystem.getInstance(), 0, interval);
+            countdownTicks++;
+        });
 
         return future;
     }
 
+    /**
+     * Looks up the balances of all economy icons while the countdown is running.
+     */
+    private void snapshotBalances() {
+        for (int id = 0; id < 2; id++) {
+            Player player = getPlayer(id);
+            if (player == null) continue;
+
+            for (TradeIcon icon : layout[id].getIcons()) {
+                if (icon instanceof EconomyIcon) ((EconomyIcon<?>) icon).snapshotBalance(player);
+            }
+        }
+    }
+
+    private void stopCountdown() {
+        if (this.countdown == null) return;
+
+        this.countdown.cancel();
+        this.countdownTicks = 0;
+        this.countdown = null;
+    }
+
+    /**
+     * @return All local players with the items they will receive and the items they offered.
+     */
+    @NotNull
+    private List<SettlementJournal.Receiver> createSettlementReceivers() {
+        List<SettlementJournal.Receiver> receivers = new ArrayList<>(2);
+
+        for (int id = 0; id < 2; id++) {
+            Player player = getPlayer(id);
+            if (player == null) continue;
+
+            int otherId = getOtherId(id);
+            List<ItemStack> received = new ArrayList<>(slots.size());
+            List<ItemStack> returned = new ArrayList<>(slots.size());
+            for (int slotId = 0; slotId < slots.size(); slotId++) {
+                received.add(getCurrentOfferedItem(otherId, slotId));
+                returned.add(getCurrentOfferedItem(id, slotId));
+            }
+
+            receivers.add(new SettlementJournal.Receiver(player, received, returned));
+        }
+
+        return receivers;
+    }
+
     private void prepareFinish(@NotNull Player player, int id) {
         pause[id] = true;
         player.closeInventory();
@@ -500,8 +707,10 @@ public abstract class Trade {
             ItemStack item = removeReceivedItem(id, slotId);
 
             //Log before calling the events. These events could remove this item, and we would still lose it.
-            if (item != null && item.getType() != Material.AIR)
+            if (item != null && item.getType() != Material.AIR) {
                 TradeLog.logItemReceive(player, initiator, players[otherId], item);
+                record.addItem(player.getName(), item);
+            }
 
             //call events
             item = callTradeItemEvent(player, other, players[otherId], item);
@@ -555,6 +764,7 @@ public abstract class Trade {
 
     public synchronized void cancel(@Nullable String message, boolean alreadyCalled) {
         if (cancelling) return;  // already cancelling
+        if (settling) return;  // the trade will be finished or rolled back once the economy transactions are done
 
         TradeResult[] results = createResults();
 
@@ -575,16 +785,18 @@ public abstract class Trade {
         this.guis[0] = null;
         this.guis[1] = null;
 
-        TradeSystem.man().unregisterTrade(players[0]);
-        TradeSystem.man().unregisterTrade(players[1]);
+        TradeSystem.man().unregisterTrade(this, 0);
+        TradeSystem.man().unregisterTrade(this, 1);
 
         if (!alreadyCalled) cancelling(message);
 
         if (message != null) {
             if (initiationServer) TradeLogService.log(players[0], players[1], TradeLog.CANCELLED_WITH_REASON.get(message));
+            record.end(TradeRecord.Outcome.CANCELLED, message);
             sendMessage(message);
         } else {
             if (initiationServer) TradeLogService.log(players[0], players[1], TradeLog.CANCELLED.get());
+            record.end(TradeRecord.Outcome.CANCELLED, null);
 
             for (int i = 0; i < 2; i++) {
                 String m = Lang.getPrefix() + getPlaceholderMessage(i, "Trade_Was_Cancelled");
@@ -598,12 +810,15 @@ public abstract class Trade {
             }
         }
 
+        // like finished trades, cancelled trades are recorded by every server
+        TradeLogService.logTrade(record);
+
         closeTrade(results);
     }
 
     private void postFinish(@Nullable Player player, int id, boolean droppedItems, @NotNull TradeResult result) {
         if (guis[id] != null) guis[id].clear();
-        TradeSystem.man().unregisterTrade(players[id]);
+        TradeSystem.man().unregisterTrade(this, id);
 
         PlayerTradeResult playerResult = result instanceof PlayerTradeResult ? (PlayerTradeResult) result : null;
         if (player != null && playerResult != null) {
@@ -677,7 +892,7 @@ public abstract class Trade {
     }
 
     private void cleanUp() {
-        stopListeners();
+        TradeSystem.man().getUpdateScheduler().remove(this);
     }
 
     protected @Nullable ItemStack callTradeItemEvent(@NotNull Player receiver, @Nullable Player sender, @NotNull String senderName, @Nullable ItemStack item) {
@@ -782,26 +997,23 @@ public abstract class Trade {
         return inv.addItem(item);
     }
 
-    @NotNull
-    private Listener getPickUpListener() {
-        //noinspection deprecation
-        return new Listener() {
-            @EventHandler
-            public void onPickup(PlayerPickupItemEvent e) {
-                for (int i = 0; i < 2; i++) {
-                    final int id = i;
-                    if (guis[id] == null) continue;
-
-                    if (e.getPlayer().getName().equals(players[id])) {
-                        if (!canPickup(e.getPlayer(), e.getItem().getItemStack()) || waitForPickup[id]) e.setCancelled(true);
-                        else {
-                            //player picked up an item, check trading items -> balance items of other trader
-                            Bukkit.getScheduler().runTaskLater(TradeSystem.getInstance(), () -> onItemPickUp(e.getPlayer(), id), 1);
-                        }
-                    }
-                }
-            }
-        };
+    /**
+     * Called by the global pickup listener when a participant of this trade picks up an item.
+     *
+     * @param e The pickup event.
+     */
+    @SuppressWarnings ("deprecation")
+    public void handlePickUp(@NotNull PlayerPickupItemEvent e) {
+        int id = getId(e.getPlayer());
+        if (id == -1 || guis[id] == null) return;
+
+        if (!canPickup(e.getPlayer(), e.getItem().getItemStack()) || waitForPickup[id]) e.setCancelled(true);
+        else {
+            //player picked up an item, check trading items -> balance items of other trader
+            markCapacityDirty(id);
+            pickedUp[id] = true;
+            updateLater(1);
+        }
     }
 
     /**
@@ -880,10 +1092,12 @@ public abstract class Trade {
             transport.setAmount(toRemove.get(slot));
 
             player.getInventory().addItem(transport);
+            markCapacityDirty(id);
             gui.setItem(slot, item.getAmount() <= 0 ? new ItemStack(Material.AIR) : item);
+            markDirty(id, slot);
         }
 
-        update();
+        if (!toRemove.isEmpty()) update();
     }
 
     /**
@@ -895,31 +1109,59 @@ public abstract class Trade {
      * @return True if the given items fit into the inventory of the trade partner.
      */
     public boolean fitsTrade(@NotNull Player from, @NotNull List<Integer> avoid, @NotNull Collection<ItemStack> items) {
-        List<ItemStack> currentlyAddingItems = new ArrayList<>(items);
-        TradingGUI gui = this.guis[getId(from)];
+        int id = getId(from);
+        TradingGUI gui = this.guis[id];
+        InventoryCapacity capacity = getCapacity(getOtherId(id));
+
+        capacity.begin();
+        for (ItemStack item : items) {
+            capacity.add(item);
+        }
 
         for (Integer slot : this.slots) {
             if (avoid.contains(slot)) continue;
-
-            ItemStack item = gui.getItem(slot);
-            if (item != null && item.getType() != Material.AIR) {
-                currentlyAddingItems.add(item);
-            }
+            capacity.add(gui.getItem(slot));
         }
 
-        PlayerInventory inv = getPlayerInventory(getOtherId(from));
-        boolean fits = true;
+        avoid.clear();
+        return capacity.fits();
+    }
 
-        for (ItemStack item : currentlyAddingItems) {
-            if (!inv.addItem(item)) {
-                fits = false;
-                break;
-            }
+    /**
+     * @param playerId The id of the player whose inventory capacity will be returned.
+     * @return The capacity of the inventory of the given player. Slots which were marked as changed will be applied before.
+     */
+    @NotNull
+    protected InventoryCapacity getCapacity(int playerId) {
+        InventoryCapacity capacity = this.capacities[playerId];
+
+        if (capacity.isDirty()) {
+            Player player = getPlayer(playerId);
+            if (player != null) capacity.update(player.getInventory());
         }
 
-        currentlyAddingItems.clear();
-        avoid.clear();
-        return fits;
+        return capacity;
+    }
+
+    /**
+     * Marks a storage slot of the given player as changed. The slot will be applied to the inventory capacity on the next fit check.
+     *
+     * @param playerId The id of the player whose inventory has changed.
+     * @param slot     The changed storage slot (0-35).
+     */
+    public void markCapacityDirty(int playerId, int slot) {
+        if (playerId < 0 || getPlayer(playerId) == null) return;  // remote inventories will be updated by inventory packets
+        this.capacities[playerId].markDirty(slot);
+    }
+
+    /**
+     * Marks all storage slots of the given player as changed. Should be used if items were added to an unknown slot.
+     *
+     * @param playerId The id of the player whose inventory has changed.
+     */
+    public void markCapacityDirty(int playerId) {
+        if (playerId < 0 || getPlayer(playerId) == null) return;  // remote inventories will be updated by inventory packets
+        this.capacities[playerId].markDirty();
     }
 
     protected final void sendMessage(@NotNull String message) {
@@ -932,13 +1174,6 @@ public abstract class Trade {
         return true;
     }
 
-    private void stopListeners() {
-        if (this.pickupListener != null) {
-            HandlerList.unregisterAll(this.pickupListener);
-            this.pickupListener = null;
-        }
-    }
-
     public int getOtherId(@Range (from = 0, to = 1) int id) {
         if (id == 1) return 0;
         else return 1;
@@ -949,8 +1184,10 @@ public abstract class Trade {
     }
 
     public int getId(Player player) {
-        if (player.getName().equals(this.players[0])) return 0;
-        else if (player.getName().equals(this.players[1])) return 1;
+        UUID uniqueId = player.getUniqueId();
+
+        if (uniqueId.equals(this.uniqueIds[0])) return 0;
+        else if (uniqueId.equals(this.uniqueIds[1])) return 1;
         else return -1;
     }
 
@@ -982,9 +1219,7 @@ public abstract class Trade {
      * @return True if the given item does not fit into the inventory of the trade partner.
      */
     public boolean doesNotFit(@NotNull Player from, @NotNull List<Integer> avoid, @NotNull ItemStack item) {
-        return !fitsTrade(from, avoid, new ArrayList<ItemStack>() {{
-            add(item);
-        }});
+        return !fitsTrade(from, avoid, Collections.singletonList(item));
     }
 
     /**
@@ -1007,9 +1242,10 @@ public abstract class Trade {
      */
     public static int checkItemFit(@NotNull Player player, @NotNull ItemStack item) {
         int amount = item.getAmount();
+        ItemStack[] contents = player.getInventory().getContents();
 
         for (int i = 0; i < 36; i++) {
-            ItemStack itemStack = player.getInventory().getContents()[i];
+            ItemStack itemStack = contents[i];
 
             if (itemStack == null || itemStack.getType().equals(Material.AIR)) return 0;
             if (itemStack.isSimilar(item) && itemStack.getAmount() < itemStack.getMaxStackSize()) {
@@ -1053,15 +1289,11 @@ public abstract class Trade {
     }
 
     protected void informTransition(TradeIcon icon, int otherId) {
-        try {
-            Method method = findInform(icon.getClass(), icon.getClass());
-
-            TradeIcon consumer = getLayout()[otherId].getIcon(IconHandler.getTransitionTarget(icon.getClass()));
-            method.invoke(icon, consumer);
-            consumer.updateItem(this, otherId);
-        } catch (ClassCastException | InvocationTargetException | IllegalAccessException | NoSuchMethodException ex) {
-            throw new IllegalStateException("Cannot execute method inform(TradeIcon) of " + icon.getClass().getName(), ex);
-        }
+        TransitionDispatcher transition = IconHandler.getTransition(icon.getClass());
+
+        TradeIcon consumer = getLayout()[otherId].getIcon(transition.getTarget());
+        transition.inform(icon, consumer);
+        consumer.updateItem(this, otherId);
     }
 
     public void handleClickResult(@NotNull TradeIcon tradeIcon, @NotNull Player player, int playerId, @NotNull GUI gui, @NotNull IconResult result) {
@@ -1108,22 +1340,6 @@ public abstract class Trade {
         }
     }
 
-    private @NotNull Method findInform(Class<? extends TradeIcon> origin, Class<? extends TradeIcon> icon) throws NoSuchMethodException {
-        try {
-            return icon.getMethod("inform", IconHandler.getTransitionTarget(origin));
-        } catch (NoSuchMethodException ignored) {
-        }
-
-        //might be a generic
-        try {
-            return icon.getMethod("inform", TradeIcon.class);
-        } catch (NoSuchMethodException ignored) {
-        }
-
-        //transition without transition method?
-        throw new NoSuchMethodException();
-    }
-
     protected final void synchronizeTitle() {
         guis().forEach(TradingGUI::synchronizeTitle);
     }
@@ -1145,7 +1361,23 @@ public abstract class Trade {
         return waitForPickup;
     }
 
-    public BukkitRunnable getCountdown() {
+    /**
+     * @return The balances of economy icons which were looked up during this trade.
+     */
+    @NotNull
+    public BalanceCache getBalanceCache() {
+        return balanceCache;
+    }
+
+    /**
+     * @return A future which will be completed with true if all economy transactions were settled successfully. Null if the trade is not finished yet.
+     */
+    @Nullable
+    public CompletableFuture<Boolean> getEconomySettlement() {
+        return economySettlement;
+    }
+
+    public TimingWheel.Timeout getCountdown() {
         return countdown;
     }
 
@@ -1206,10 +1438,25 @@ public abstract class Trade {
         return initiationServer;
     }
 
+    /**
+     * @return The structured log of this trade.
+     */
+    @NotNull
+    public TradeRecord getRecord() {
+        return record;
+    }
+
     public String[] getPlayers() {
         return players;
     }
 
+    /**
+     * @return The unique ids of both participants. Players on other servers have no unique id.
+     */
+    public UUID[] getUniqueIds() {
+        return uniqueIds;
+    }
+
     public boolean isCancelling() {
         return cancelling;
     }
@@ -8,12 +8,16 @@ import de.codingair.codingapi.server.sounds.SoundData;
 import de.codingair.codingapi.tools.io.JSON.JSON;
 import de.codingair.codingapi.tools.io.lib.JSONArray;
 import de.codingair.tradesystem.proxy.packets.PlayerStatePacket;
+import de.codingair.tradesystem.proxy.packets.utils.SerializedItem;
 import de.codingair.tradesystem.spigot.TradeSystem;
 import de.codingair.tradesystem.spigot.events.TradeOfferItemEvent;
+import de.codingair.tradesystem.spigot.extras.blacklist.Blacklist;
 import de.codingair.tradesystem.spigot.extras.blacklist.BlockedItem;
 import de.codingair.tradesystem.spigot.extras.bstats.MetricsManager;
 import de.codingair.tradesystem.spigot.extras.tradelog.TradeLog;
 import de.codingair.tradesystem.spigot.extras.tradelog.TradeLogService;
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.economy.EconomySettlementQueue;
+import de.codingair.tradesystem.spigot.trade.journal.SettlementJournal;
 import de.codingair.tradesystem.spigot.trade.managers.InvitationManager;
 import de.codingair.tradesystem.spigot.utils.InputGUI;
 import de.codingair.tradesystem.spigot.utils.Lang;
@@ -32,6 +36,7 @@ import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 public class TradeHandler {
@@ -41,13 +46,62 @@ public class TradeHandler {
     private final Cache<String, Boolean> disconnectedOffline = CacheBuilder.newBuilder().expireAfterWrite(5, TimeUnit.MINUTES).build();
     private final Set<String> offline = new HashSet<>();
 
-    private final HashMap<String, Trade> trades = new HashMap<>();
+    /**
+     * Trades of local players. Thread-safe to allow lookups from proxy packet handlers and placeholders.
+     */
+    private final ConcurrentHashMap<UUID, Trade> trades = new ConcurrentHashMap<>();
+    /**
+     * Lower-case names of all participants (including players on other servers) to their trade.
+     */
+    private final ConcurrentHashMap<String, Trade> tradesByName = new ConcurrentHashMap<>();
     private final List<BlockedItem> blacklist = new ArrayList<>();
+    private final List<BlockedItem> blacklistView = new AbstractList<BlockedItem>() {
+        // every change of the list applies the rules immediately
+
+        @Override
+        public BlockedItem get(int index) {
+            return blacklist.get(index);
+        }
+
+        @Override
+        public int size() {
+            return blacklist.size();
+        }
+
+        @Override
+        public BlockedItem set(int index, BlockedItem element) {
+            BlockedItem previous = blacklist.set(index, element);
+            invalidateBlacklist();
+            return previous;
+        }
+
+        @Override
+        public void add(int index, BlockedItem element) {
+            blacklist.add(index, element);
+            invalidateBlacklist();
+        }
+
+        @Override
+        public BlockedItem remove(int index) {
+            BlockedItem removed = blacklist.remove(index);
+            invalidateBlacklist();
+            return removed;
+        }
+    };
+    private volatile Blacklist blacklistIndex = null;
     private final InvitationManager invitationManager = new InvitationManager();
+    private final TradeUpdateScheduler updateScheduler = new TradeUpdateScheduler();
+    private final TimingWheel timingWheel = new TimingWheel();
+    private final SettlementJournal settlementJournal = new SettlementJournal();
+    private final EconomySettlementQueue economySettlementQueue = new EconomySettlementQueue();
     private int requestExpirationTime = 60;
     private int distance = 50;
 
     private DecimalFormat moneyPattern;
+    private long balanceCacheTime = 5000;
+    private boolean asyncVaultSettlement = false;
+    private int maxPacketSize = 30000;
+    private boolean batchProxyPackets = false;
     private final HashMap<String, BigDecimal> moneyShortcuts = new HashMap<>();
 
     private int countdownRepetitions = 0;
@@ -142,6 +196,14 @@ public class TradeHandler {
         symbols.setGroupingSeparator(groupingSeparator.charAt(0));
         moneyPattern.setDecimalFormatSymbols(symbols);
 
+        this.balanceCacheTime = config.getLong("TradeSystem.Money.Balance_Cache_Time", 5000);
+        this.asyncVaultSettlement = config.getBoolean("TradeSystem.Money.Async_Vault_Settlement", false);
+
+        //plugin messages must not exceed 32767 bytes
+        this.maxPacketSize = Math.max(1024, Math.min(32000, config.getInt("TradeSystem.Proxy.Max_Packet_Size", 30000)));
+        this.batchProxyPackets = config.getBoolean("TradeSystem.Proxy.Batch_Packets", false);
+        SerializedItem.setCompression(config.getInt("TradeSystem.Proxy.Compression_Threshold", 256), config.getInt("TradeSystem.Proxy.Compression_Level", -1));
+
         //load money abbreviations like 1k = 1,000
         moneyShortcuts.clear();
         if (config.getBoolean("TradeSystem.Money.Easy_Selection.Enabled", true)) {
@@ -237,16 +299,20 @@ public class TradeHandler {
             saveBlackList();
         }
 
+        this.blacklistIndex = null;
         TradeSystem.log("    ...got " + this.blacklist.size() + " blocked item(s)");
 
         if (save) file.saveConfig();
 
-        invitationManager.startExpirationHandler();
+        settlementJournal.open();
     }
 
     public void disable() {
         cancelAll();
-        invitationManager.stopExpirationHandler();
+        updateScheduler.stop();
+        timingWheel.stop();
+        economySettlementQueue.shutdown();
+        settlementJournal.close();
     }
 
     private SoundData getSound(String name, FileConfiguration config, String def) {
@@ -309,9 +375,19 @@ public class TradeHandler {
 
         config.set("TradeSystem.Blacklist", l);
         file.saveConfig();
+
+        // the blacklist might have been changed
+        this.blacklistIndex = null;
     }
 
     public void startTrade(Player player, @Nullable Player other, @NotNull String othersName, boolean initiationServer) {
+        startTrade(player, other, othersName, initiationServer, null);
+    }
+
+    /**
+     * @param tradeId The id of the trade. Proxy trades must use the id of the initiating server. Null to generate a new one.
+     */
+    public void startTrade(Player player, @Nullable Player other, @NotNull String othersName, boolean initiationServer, @Nullable UUID tradeId) {
         if (TradeSystem.man().isTrading(player) || TradeSystem.man().isTrading(other)) {
             player.sendMessage(Lang.getPrefix() + Lang.get("Other_is_already_trading", player));
             return;
@@ -325,27 +401,36 @@ public class TradeHandler {
         player.closeInventory();
         if (other != null) other.closeInventory();
 
-        Trade trade = createTrade(player, other, othersName, initiationServer);
+        Trade trade = createTrade(tradeId == null ? UUID.randomUUID() : tradeId, player, other, othersName, initiationServer);
 
         //register
-        registerTrade(trade, player.getName());
-        registerTrade(trade, othersName);
+        registerTrade(trade, player.getName(), player.getUniqueId());
+        registerTrade(trade, othersName, other == null ? null : other.getUniqueId());
 
         trade.start();
     }
 
-    private void registerTrade(@NotNull Trade trade, @NotNull String player) {
-        this.trades.put(player.toLowerCase(), trade);
+    private void registerTrade(@NotNull Trade trade, @NotNull String player, @Nullable UUID uniqueId) {
+        if (uniqueId != null) this.trades.put(uniqueId, trade);
+        this.tradesByName.put(player.toLowerCase(), trade);
     }
 
-    public void unregisterTrade(@NotNull String player) {
-        this.trades.remove(player.toLowerCase());
+    /**
+     * Removes the given participant from the trade registry.
+     *
+     * @param trade The trade that should be unregistered.
+     * @param id    The id of the participant.
+     */
+    public void unregisterTrade(@NotNull Trade trade, int id) {
+        UUID uniqueId = trade.getUniqueIds()[id];
+        if (uniqueId != null) this.trades.remove(uniqueId, trade);
+        this.tradesByName.remove(trade.getPlayers()[id].toLowerCase(), trade);
     }
 
     @NotNull
-    private Trade createTrade(Player player, @Nullable Player other, @NotNull String name, boolean initiationServer) {
-        if (other != null) return new BukkitTrade(player, other, initiationServer);
-        else return new ProxyTrade(player, name, initiationServer);
+    private Trade createTrade(@NotNull UUID tradeId, Player player, @Nullable Player other, @NotNull String name, boolean initiationServer) {
+        if (other != null) return new BukkitTrade(tradeId, player, other, initiationServer);
+        else return new ProxyTrade(tradeId, player, name, initiationServer);
     }
 
     public void quit(Player player) {
@@ -366,11 +451,13 @@ public class TradeHandler {
             this.disconnectedOffline.invalidate(player.getName());
             this.offline.add(player.getName());
         }
+
+        settlementJournal.recover(player);
     }
 
     private void cancelAll() {
         TradeSystem.log("  > Cancelling all active trades");
-        List<Trade> tradeList = new ArrayList<>(this.trades.values());
+        Set<Trade> tradeList = new HashSet<>(this.tradesByName.values());
 
         for (Trade trade : tradeList) {
             trade.cancel();
@@ -381,11 +468,15 @@ public class TradeHandler {
     }
 
     public Trade getTrade(Player player) {
-        return getTrade(player.getName());
+        return this.trades.get(player.getUniqueId());
     }
 
+    /**
+     * @param player The name of a trading player. Can also be a player on another server.
+     * @return The trade of the given player or null.
+     */
     public Trade getTrade(String player) {
-        return this.trades.get(player.toLowerCase());
+        return this.tradesByName.get(player.toLowerCase());
     }
 
     public boolean isTrading(Player player) {
@@ -451,8 +542,31 @@ public class TradeHandler {
         else this.offline.add(player);
     }
 
+    /**
+     * Changes of the returned list will be applied immediately. Use {@link #saveBlackList()} to write them to the config.
+     *
+     * @return All blocked items.
+     */
     public List<BlockedItem> getBlacklist() {
-        return blacklist;
+        return blacklistView;
+    }
+
+    /**
+     * Applies changes of blocked items which are already part of the {@link #getBlacklist() blacklist}. Does not write the config.
+     */
+    public void invalidateBlacklist() {
+        this.blacklistIndex = null;
+    }
+
+    @NotNull
+    private Blacklist getBlacklistIndex() {
+        Blacklist index = this.blacklistIndex;
+        if (index == null) {
+            index = new Blacklist(this.blacklist);
+            this.blacklistIndex = index;
+        }
+
+        return index;
     }
 
     /**
@@ -463,14 +577,7 @@ public class TradeHandler {
      * @return {@link Boolean#TRUE} if this item should be marked as blocked.
      */
     public boolean isBlocked(@NotNull Player placer, @Nullable Player receivingPlayer, @NotNull String receiver, @NotNull ItemStack item) {
-        boolean blacklisted = false;
-
-        for (BlockedItem blocked : this.blacklist) {
-            if (blocked.matches(item)) {
-                blacklisted = true;
-                break;
-            }
-        }
+        boolean blacklisted = getBlacklistIndex().matches(item);
 
         TradeOfferItemEvent event;
         if (receivingPlayer == null) event = new TradeOfferItemEvent(placer, receiver, item, blacklisted);
@@ -529,6 +636,22 @@ public class TradeHandler {
         return invitationManager;
     }
 
+    public TradeUpdateScheduler getUpdateScheduler() {
+        return updateScheduler;
+    }
+
+    public TimingWheel getTimingWheel() {
+        return timingWheel;
+    }
+
+    public SettlementJournal getSettlementJournal() {
+        return settlementJournal;
+    }
+
+    public EconomySettlementQueue getEconomySettlementQueue() {
+        return economySettlementQueue;
+    }
+
     public InputGUI getInputGUI() {
         return inputGUI;
     }
@@ -537,6 +660,34 @@ public class TradeHandler {
         return moneyPattern;
     }
 
+    /**
+     * @return The time in milliseconds in which balances of economy icons will be reused.
+     */
+    public long getBalanceCacheTime() {
+        return balanceCacheTime;
+    }
+
+    /**
+     * @return True, if Vault transactions may be executed off the server thread.
+     */
+    public boolean isAsyncVaultSettlement() {
+        return asyncVaultSettlement;
+    }
+
+    /**
+     * @return The maximum size of a proxy packet with items in bytes. Bigger packets will be split.
+     */
+    public int getMaxPacketSize() {
+        return maxPacketSize;
+    }
+
+    /**
+     * @return True, if all packets to the proxy of a tick should be merged into bundles.
+     */
+    public boolean isBatchProxyPackets() {
+        return batchProxyPackets;
+    }
+
     public boolean isTradeReportItems() {
         return tradeReportItems;
     }
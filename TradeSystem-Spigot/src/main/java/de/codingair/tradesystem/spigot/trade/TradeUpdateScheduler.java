@@ -0,0 +1,119 @@
+package de.codingair.tradesystem.spigot.trade;
+
+import de.codingair.tradesystem.spigot.TradeSystem;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects all update requests of running trades and executes them together on the next tick. Each trade will be updated at most once per tick,
+ * no matter how many clicks, drags or pickups requested an update. The inventories of all viewers will be resent one tick after their last update.
+ */
+public class TradeUpdateScheduler {
+    private final Set<Trade> updates = new LinkedHashSet<>();
+    private final Set<Trade> syncs = new LinkedHashSet<>();
+    private BukkitTask task = null;
+
+    private long requestedUpdates = 0;
+    private long coalescedUpdates = 0;
+    private long requestedSyncs = 0;
+    private long coalescedSyncs = 0;
+
+    /**
+     * Requests an update of the given trade on the next tick. Multiple requests within the same tick will be merged.
+     *
+     * @param trade The trade that should be updated.
+     */
+    public void requestUpdate(@NotNull Trade trade) {
+        requestedUpdates++;
+        if (!updates.add(trade)) coalescedUpdates++;
+        schedule();
+    }
+
+    /**
+     * Requests an inventory update for all viewers of the given trade on the next tick to fix some visualization bugs.
+     *
+     * @param trade The trade whose viewers should be synchronized.
+     */
+    public void requestSync(@NotNull Trade trade) {
+        requestedSyncs++;
+        if (!syncs.add(trade)) coalescedSyncs++;
+        schedule();
+    }
+
+    /**
+     * Drops all pending requests of the given trade. Useful when a trade has been finished or cancelled.
+     *
+     * @param trade The trade which should be removed.
+     */
+    public void remove(@NotNull Trade trade) {
+        updates.remove(trade);
+        syncs.remove(trade);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        updates.clear();
+        syncs.clear();
+    }
+
+    private void schedule() {
+        if (task == null) task = Bukkit.getScheduler().runTask(TradeSystem.getInstance(), this::flush);
+    }
+
+    private void flush() {
+        task = null;
+
+        Set<Trade> updates = new LinkedHashSet<>(this.updates);
+        this.updates.clear();
+
+        List<Trade> syncs = new ArrayList<>(this.syncs);
+        this.syncs.clear();
+
+        for (Trade trade : syncs) {
+            // the update will request another sync anyway
+            if (updates.contains(trade)) {
+                coalescedSyncs++;
+                continue;
+            }
+
+            trade.getViewers().forEach(Player::updateInventory);
+        }
+
+        for (Trade trade : updates) {
+            trade.flushUpdate();
+        }
+    }
+
+    public long getRequestedUpdates() {
+        return requestedUpdates;
+    }
+
+    /**
+     * @return The amount of update requests which were merged into an already pending update.
+     */
+    public long getCoalescedUpdates() {
+        return coalescedUpdates;
+    }
+
+    public long getRequestedSyncs() {
+        return requestedSyncs;
+    }
+
+    /**
+     * @return The amount of inventory updates which were merged into an already pending inventory update.
+     */
+    public long getCoalescedSyncs() {
+        return coalescedSyncs;
+    }
+}
@@ -10,7 +10,6 @@ import de.codingair.tradesystem.spigot.trade.gui.layout.TradeLayout;
 import de.codingair.tradesystem.spigot.trade.gui.layout.shulker.ShulkerPeekGUI;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.basic.TradeSlot;
 import de.codingair.tradesystem.spigot.utils.Lang;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -75,12 +74,86 @@ public class TradeGUIListener implements Listener {
                     }
 
                     trade.onTradeOfferChange(true);
+
+                    // mark after the instant update since the drag will be applied afterwards
+                    int id = trade.getId(player);
+                    for (Integer rawSlot : e.getRawSlots()) {
+                        if (rawSlot < 54) trade.markDirty(id, rawSlot);
+                    }
+
                     trade.updateLater(1);
                 }
             }
         }
     }
 
+    @EventHandler (priority = EventPriority.MONITOR)
+    public void afterDrag(InventoryDragEvent e) {
+        if (e.isCancelled() || !(e.getWhoClicked() instanceof Player)) return;
+
+        Player player = (Player) e.getWhoClicked();
+        Trade trade = TradeSystem.man().getTrade(player);
+        if (trade == null) return;
+
+        int id = trade.getId(player);
+        int topSize = e.getView().getTopInventory().getSize();
+        for (Integer rawSlot : e.getRawSlots()) {
+            if (rawSlot >= topSize) trade.markCapacityDirty(id, e.getView().convertSlot(rawSlot));
+        }
+    }
+
+    /**
+     * The inventory will change after all listeners were called. The changed slots will be applied to the inventory capacity of this player with the
+     * next fit check. Cancelled clicks are included since some of them are applied manually by this listener.
+     *
+     * @param e The click event.
+     */
+    @EventHandler (priority = EventPriority.MONITOR)
+    public void afterClick(InventoryClickEvent e) {
+        if (!(e.getWhoClicked() instanceof Player)) return;
+
+        Player player = (Player) e.getWhoClicked();
+        Trade trade = TradeSystem.man().getTrade(player);
+        if (trade == null) return;
+
+        int id = trade.getId(player);
+        boolean bottom = e.getClickedInventory() == e.getView().getBottomInventory();
+
+        switch (e.getAction()) {
+            case NOTHING:
+            case CLONE_STACK:
+            case DROP_ALL_CURSOR:
+            case DROP_ONE_CURSOR:
+                break;
+            case PICKUP_ALL:
+            case PICKUP_SOME:
+            case PICKUP_HALF:
+            case PICKUP_ONE:
+            case PLACE_ALL:
+            case PLACE_SOME:
+            case PLACE_ONE:
+            case SWAP_WITH_CURSOR:
+            case DROP_ALL_SLOT:
+            case DROP_ONE_SLOT:
+                if (bottom) trade.markCapacityDirty(id, e.getSlot());
+                break;
+            case HOTBAR_SWAP:
+            case HOTBAR_MOVE_AND_READD:
+                if (bottom) trade.markCapacityDirty(id, e.getSlot());
+                trade.markCapacityDirty(id, e.getHotbarButton());
+                break;
+            case MOVE_TO_OTHER_INVENTORY:
+                // items moved into the trade only leave the clicked slot
+                if (bottom) {
+                    trade.markCapacityDirty(id, e.getSlot());
+                    break;
+                }
+                // items moved out of the trade can be placed into any slot
+            default:
+                trade.markCapacityDirty(id);
+        }
+    }
+
     //use higher priority than the GUI listener
     @EventHandler (priority = EventPriority.HIGH)
     public void onClick(InventoryClickEvent e) {
@@ -109,10 +182,11 @@ public class TradeGUIListener implements Listener {
                             //own slots
 
                             // shulker peeking
-                            if (e.getClick() == ClickType.RIGHT && Version.atLeast(11) && ShulkerPeekGUI.isShulkerBox(e.getCurrentItem())) {
+                            ItemStack[] contents = e.getClick() == ClickType.RIGHT && Version.atLeast(11) ? trade.getShulkerContents(player, e.getSlot(), e.getCurrentItem()) : null;
+                            if (contents != null) {
                                 TradingGUI tradingGUI = trade.getGUIs()[trade.getId(player)];
                                 try {
-                                    tradingGUI.openNestedGUI(new ShulkerPeekGUI(player, e.getCurrentItem(), e.getSlot()), true, true);
+                                    tradingGUI.openNestedGUI(new ShulkerPeekGUI(player, contents, e.getSlot()), true, true);
                                 } catch (AlreadyOpenedException | NoPageException | IsWaitingException ex) {
                                     throw new RuntimeException(ex);
                                 }
@@ -127,10 +201,11 @@ public class TradeGUIListener implements Listener {
                             boolean tradePartner = trade.getOtherSlots().contains(e.getSlot());
                             if (tradePartner) {
                                 // shulker peeking
-                                if (Version.atLeast(11) && ShulkerPeekGUI.isShulkerBox(e.getCurrentItem())) {
+                                ItemStack[] contents = Version.atLeast(11) ? trade.getShulkerContents(player, e.getSlot(), e.getCurrentItem()) : null;
+                                if (contents != null) {
                                     TradingGUI tradingGUI = trade.getGUIs()[trade.getId(player)];
                                     try {
-                                        tradingGUI.openNestedGUI(new ShulkerPeekGUI(player, e.getCurrentItem(), e.getSlot()), true, true);
+                                        tradingGUI.openNestedGUI(new ShulkerPeekGUI(player, contents, e.getSlot()), true, true);
                                     } catch (AlreadyOpenedException | NoPageException | IsWaitingException ex) {
                                         throw new RuntimeException(ex);
                                     }
@@ -146,19 +221,14 @@ public class TradeGUIListener implements Listener {
     private void onDrop(Player player, Trade trade, InventoryClickEvent e) {
         if (!TradeSystem.getInstance().getTradeManager().isDropItems()) {
             //check for cursor
-            updateWaitForPickup(trade, e, player);
+            trade.waitForPickup(player, false);
         }
     }
 
     private void onClickBottomInventory(Player player, Trade trade, InventoryClickEvent e) {
         if (!TradeSystem.getInstance().getTradeManager().isDropItems()) {
             //check for cursor
-            trade.getWaitForPickup()[trade.getId(player)] = true;
-            Bukkit.getScheduler().runTaskLater(TradeSystem.getInstance(), () -> {
-                trade.getCursor()[trade.getId(player)] = e.getCursor() != null && e.getCursor().getType() != Material.AIR;
-                trade.getWaitForPickup()[trade.getId(player)] = false;
-                trade.cancelItemOverflow(trade.getOtherId(player));
-            }, 1);
+            trade.waitForPickup(player, true);
         }
 
         ItemStack item = e.getCurrentItem();
@@ -205,6 +275,7 @@ public class TradeGUIListener implements Listener {
                     e.getView().getBottomInventory().setItem(e.getSlot(), null);
                 }
 
+                trade.markDirty(trade.getId(player));
                 trade.onTradeOfferChange(true);
                 trade.updateLater(1);
             }
@@ -229,6 +300,8 @@ public class TradeGUIListener implements Listener {
         }
 
         if (cursor.getAmount() > startSize) {
+            trade.markDirty(trade.getId((Player) e.getWhoClicked()));
+
             // scam glitch -> update immediately
             trade.onTradeOfferChange(true);
 
@@ -285,6 +358,9 @@ public class TradeGUIListener implements Listener {
             trade.onTradeOfferChange(true);
         }
 
+        // mark after the instant update since the click will be applied afterwards
+        trade.markDirty(trade.getId(player), e.getSlot());
+
         if (e.getClick().name().equals("SWAP_OFFHAND")) {
             if (e.getView().getTopInventory().equals(e.getClickedInventory())) {
                 e.setCancelled(true);
@@ -327,7 +403,7 @@ public class TradeGUIListener implements Listener {
         boolean fits = true;
         if (!TradeSystem.getInstance().getTradeManager().isDropItems()) {
             //check for cursor
-            updateWaitForPickup(trade, e, player);
+            trade.waitForPickup(player, false);
 
             if (!e.isCancelled()) {
                 //check if fits
@@ -422,12 +498,4 @@ public class TradeGUIListener implements Listener {
             e.setCancelled(true);
         } else trade.updateLater(1);
     }
-
-    private void updateWaitForPickup(Trade trade, InventoryClickEvent e, Player player) {
-        trade.getWaitForPickup()[trade.getId(player)] = true;
-        Bukkit.getScheduler().runTaskLater(TradeSystem.getInstance(), () -> {
-            trade.getCursor()[trade.getId(player)] = e.getCursor() != null && e.getCursor().getType() != Material.AIR;
-            trade.getWaitForPickup()[trade.getId(player)] = false;
-        }, 1);
-    }
 }
@@ -9,6 +9,10 @@ import de.codingair.tradesystem.spigot.TradeSystem;
 import de.codingair.tradesystem.spigot.trade.Trade;
 import de.codingair.tradesystem.spigot.utils.Lang;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
 
 public class TradingGUI extends GUI {
     private final Trade trade;
@@ -47,6 +51,17 @@ public class TradingGUI extends GUI {
         return waiting;
     }
 
+    /**
+     * Sets the item only if it differs from the current one to avoid unnecessary slot updates.
+     *
+     * @param slot The slot.
+     * @param item The new item.
+     */
+    public void setItemIfChanged(int slot, @Nullable ItemStack item) {
+        if (Objects.equals(getItem(slot), item)) return;
+        setItem(slot, item);
+    }
+
     @Override
     public void openNestedGUI(GUI gui, boolean listenOnClose, boolean clickSound) throws AlreadyOpenedException, NoPageException, IsWaitingException {
         trade.acknowledgeGuiSwitch(player);
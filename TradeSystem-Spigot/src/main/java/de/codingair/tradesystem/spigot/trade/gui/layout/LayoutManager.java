@@ -104,6 +104,8 @@ public class LayoutManager {
             saveActiveLayout();
         }
 
+        getActive().compile();
+
         TradeSystem.log("    ...got " + (this.patterns.size() - standardLayouts) + " layout(s)");
     }
 
@@ -261,6 +263,7 @@ public class LayoutManager {
 
     public void setActive(@NotNull String name) {
         this.active = name;
+        getActive().compile();
         saveActiveLayout();
     }
 
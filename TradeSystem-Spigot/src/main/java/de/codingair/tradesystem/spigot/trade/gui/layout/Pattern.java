@@ -3,11 +3,15 @@ package de.codingair.tradesystem.spigot.trade.gui.layout;
 import de.codingair.codingapi.tools.io.JSON.JSON;
 import de.codingair.codingapi.tools.io.utils.DataMask;
 import de.codingair.codingapi.tools.io.utils.Serializable;
+import de.codingair.tradesystem.spigot.trade.gui.layout.registration.IconFactory;
+import de.codingair.tradesystem.spigot.trade.gui.layout.registration.IconHandler;
 import de.codingair.tradesystem.spigot.trade.gui.layout.registration.exceptions.IconNotFoundException;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.TradeIcon;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.basic.TradeSlot;
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.basic.TradeSlotOther;
 import de.codingair.tradesystem.spigot.trade.gui.layout.utils.IconData;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
@@ -15,6 +19,12 @@ public class Pattern implements Serializable, Iterable<IconData> {
     private String name;
     private IconData[] icons;
     private int size;
+    private IconFactory[] factories;
+
+    // index of the icon positions; computed once since patterns will not be changed after loading
+    private Map<Class<? extends TradeIcon>, List<Integer>> slotsByClass;
+    private List<Integer> otherTradeSlots;
+    private int[] tradeSlotIds;
 
     public Pattern(@NotNull String name, int size, @NotNull IconData[] icons) {
         this.name = name;
@@ -86,53 +96,130 @@ public class Pattern implements Serializable, Iterable<IconData> {
         return name;
     }
 
+    /**
+     * Resolves the icon factories of all slots and indexes all icon positions. Called when this pattern is activated to make {@link #build()} and
+     * all slot lookups as fast as possible.
+     */
+    public void compile() {
+        index();
+
+        IconFactory[] factories = new IconFactory[this.icons.length];
+
+        for (int i = 0; i < this.icons.length; i++) {
+            IconData data = this.icons[i];
+            if (data != null) factories[i] = IconHandler.getFactory(data.getTradeIcon());
+        }
+
+        this.factories = factories;
+    }
+
     public TradeLayout build() {
+        if (this.factories == null) compile();
         TradeIcon[] icons = new TradeIcon[this.icons.length];
 
         for (int i = 0; i < this.icons.length; i++) {
-            IconData data = this.icons[i];
-            if (data != null) icons[i] = data.build();
+            IconFactory factory = this.factories[i];
+            if (factory != null) icons[i] = factory.create(this.icons[i].getItems());
         }
 
         return new TradeLayout(this, icons);
     }
 
-    public int getAmountOf(@NotNull Class<? extends TradeIcon> c) {
-        int i = 0;
+    private void index() {
+        Map<Class<? extends TradeIcon>, List<Integer>> slotsByClass = new HashMap<>();
+
+        for (int slot = 0; slot < this.icons.length; slot++) {
+            IconData icon = this.icons[slot];
+            if (icon != null) slotsByClass.computeIfAbsent(icon.getTradeIcon(), $ -> new ArrayList<>()).add(slot);
+        }
+
+        slotsByClass.replaceAll((c, slots) -> Collections.unmodifiableList(slots));
 
-        for (IconData icon : icons) {
-            if (icon.getTradeIcon().equals(c)) i++;
+        List<Integer> tradeSlots = slotsByClass.getOrDefault(TradeSlot.class, Collections.emptyList());
+        int[] tradeSlotIds = new int[this.icons.length];
+        Arrays.fill(tradeSlotIds, -1);
+        for (int slotId = 0; slotId < tradeSlots.size(); slotId++) {
+            tradeSlotIds[tradeSlots.get(slotId)] = slotId;
         }
 
-        return i;
+        //Sort other slots in a way that the trade layout is symmetrically.
+        List<Integer> otherTradeSlots = new ArrayList<>(slotsByClass.getOrDefault(TradeSlotOther.class, Collections.emptyList()));
+        otherTradeSlots.sort((o1, o2) -> {
+            int row1 = o1 / 9;
+            int row2 = o2 / 9;
+
+            if (row1 != row2) return Integer.compare(row1, row2);
+
+            //reverse
+            return Integer.compare(o2, o1);
+        });
+
+        this.tradeSlotIds = tradeSlotIds;
+        this.otherTradeSlots = Collections.unmodifiableList(otherTradeSlots);
+        this.slotsByClass = slotsByClass;
+    }
+
+    @NotNull
+    private Map<Class<? extends TradeIcon>, List<Integer>> getSlotsByClass() {
+        if (this.slotsByClass == null) index();
+        return this.slotsByClass;
+    }
+
+    public int getAmountOf(@NotNull Class<? extends TradeIcon> c) {
+        return getSlotsOf(c).size();
     }
 
     public IconData[] getIcons() {
         return icons;
     }
 
+    /**
+     * @param slot The specific slot.
+     * @return The icon class of the given slot. Null if the slot is empty.
+     */
+    @Nullable
+    public Class<? extends TradeIcon> getIconClass(int slot) {
+        IconData data = icons[slot];
+        return data == null ? null : data.getTradeIcon();
+    }
+
     /**
      * @param slot The specific slot.
      * @return true if the given {@link TradeIcon} is a TradeSlot.
      */
     public boolean canHoldPlayerItem(int slot) {
-        IconData data = icons[slot];
-        return TradeSlot.class.equals(data.getTradeIcon());
+        return TradeSlot.class.equals(getIconClass(slot));
     }
 
     public int getTradeSlotCount() {
         return getAmountOf(TradeSlot.class);
     }
 
+    /**
+     * @param c The icon class.
+     * @return An unmodifiable and ascending list of all slots which hold the given icon class.
+     */
+    @NotNull
     public List<Integer> getSlotsOf(@NotNull Class<? extends TradeIcon> c) {
-        List<Integer> slots = new ArrayList<>();
+        return getSlotsByClass().getOrDefault(c, Collections.emptyList());
+    }
 
-        for (int slot = 0; slot < this.icons.length; slot++) {
-            IconData icon = this.icons[slot];
-            if (icon != null && c.equals(icon.getTradeIcon())) slots.add(slot);
-        }
+    /**
+     * @return An unmodifiable list of all {@link TradeSlotOther} slots. The index of a slot matches the slot id of the {@link TradeSlot} on the
+     * mirrored position.
+     */
+    @NotNull
+    public List<Integer> getOtherTradeSlots() {
+        getSlotsByClass();
+        return otherTradeSlots;
+    }
 
-        return slots;
+    /**
+     * @return An array which maps each inventory slot to its slot id or -1 if the slot cannot hold items. Must not be modified.
+     */
+    public int @NotNull [] getTradeSlotIds() {
+        getSlotsByClass();
+        return tradeSlotIds;
     }
 
     @NotNull
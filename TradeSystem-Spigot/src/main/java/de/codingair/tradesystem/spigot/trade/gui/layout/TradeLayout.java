@@ -3,13 +3,25 @@ package de.codingair.tradesystem.spigot.trade.gui.layout;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.TradeIcon;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 public class TradeLayout {
     private final Pattern pattern;
     private final TradeIcon[] icons;
 
+    // icon lookups will be called on every click and update, so resolve them only once
+    private final Map<TradeIcon, Integer> slotByIcon = new IdentityHashMap<>();
+    private final Map<Class<?>, TradeIcon> iconByClass = new HashMap<>();
+
     public TradeLayout(@NotNull Pattern pattern, @NotNull TradeIcon[] icons) {
         this.pattern = pattern;
         this.icons = icons;
+
+        for (int i = 0; i < icons.length; i++) {
+            if (icons[i] != null) this.slotByIcon.putIfAbsent(icons[i], i);
+        }
     }
 
     public TradeLayout(@NotNull Pattern pattern, int size) {
@@ -42,17 +54,30 @@ public class TradeLayout {
     }
 
     public @NotNull <T extends TradeIcon> T getIcon(@NotNull Class<T> c) {
+        TradeIcon icon = this.iconByClass.get(c);
+        if (icon == null) {
+            icon = findIcon(c);
+            this.iconByClass.put(c, icon);
+        }
+
+        //noinspection unchecked
+        return (T) icon;
+    }
+
+    @NotNull
+    private TradeIcon findIcon(@NotNull Class<?> c) {
         for (TradeIcon icon : this.icons) {
-            if (c.isInstance(icon)) {
-                //noinspection unchecked
-                return (T) icon;
-            }
+            if (c.isInstance(icon)) return icon;
         }
 
         throw new IllegalStateException("Cannot find a TradeIcon with class " + c.getName());
     }
 
     public int getSlotOf(@NotNull TradeIcon icon) {
+        Integer slot = this.slotByIcon.get(icon);
+        if (slot != null) return slot;
+
+        // icons with a custom equals implementation
         for (int i = 0; i < this.icons.length; i++) {
             TradeIcon other = this.icons[i];
             if (icon.equals(other)) return i;
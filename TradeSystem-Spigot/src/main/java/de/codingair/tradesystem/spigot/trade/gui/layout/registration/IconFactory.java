@@ -0,0 +1,82 @@
+package de.codingair.tradesystem.spigot.trade.gui.layout.registration;
+
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.MultiTradeIcon;
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.TradeIcon;
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.basic.TradeSlot;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Creates new instances of a registered {@link TradeIcon} class. The constructor will be looked up once when compiling the factory, so creating
+ * icons for a new trade does not need any reflection.
+ */
+@FunctionalInterface
+public interface IconFactory {
+
+    /**
+     * @param items The layout items of the icon.
+     * @return A new icon instance.
+     */
+    @NotNull TradeIcon create(@Nullable ItemStack @Nullable [] items);
+
+    /**
+     * @param tradeIcon The trade icon class.
+     * @return A factory which uses the constructor that matches the icon type.
+     * @throws NoSuchMethodException  If the icon has no proper constructor.
+     * @throws IllegalAccessException If the constructor is not accessible.
+     */
+    @NotNull
+    static IconFactory compile(@NotNull Class<? extends TradeIcon> tradeIcon) throws NoSuchMethodException, IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+        if (MultiTradeIcon.class.isAssignableFrom(tradeIcon)) {
+            MethodHandle constructor = lookup.findConstructor(tradeIcon, MethodType.methodType(void.class, ItemStack[].class))
+                    .asType(MethodType.methodType(TradeIcon.class, ItemStack[].class));
+
+            return items -> {
+                try {
+                    return (TradeIcon) constructor.invokeExact(items);
+                } catch (Throwable t) {
+                    throw new IllegalStateException("The TradeIcon " + tradeIcon.getName() + " could not be initiated.", t);
+                }
+            };
+        }
+
+        MethodHandle constructor = null;
+        if (!TradeSlot.class.isAssignableFrom(tradeIcon)) {
+            try {
+                constructor = lookup.findConstructor(tradeIcon, MethodType.methodType(void.class, ItemStack.class))
+                        .asType(MethodType.methodType(TradeIcon.class, ItemStack.class));
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+
+        if (constructor != null) {
+            MethodHandle itemConstructor = constructor;
+
+            return items -> {
+                try {
+                    return (TradeIcon) itemConstructor.invokeExact(items == null || items.length == 0 ? null : items[0]);
+                } catch (Throwable t) {
+                    throw new IllegalStateException("The TradeIcon " + tradeIcon.getName() + " could not be initiated.", t);
+                }
+            };
+        }
+
+        MethodHandle emptyConstructor = lookup.findConstructor(tradeIcon, MethodType.methodType(void.class))
+                .asType(MethodType.methodType(TradeIcon.class));
+
+        return items -> {
+            try {
+                return (TradeIcon) emptyConstructor.invokeExact();
+            } catch (Throwable t) {
+                throw new IllegalStateException("The TradeIcon " + tradeIcon.getName() + " could not be initiated.", t);
+            }
+        };
+    }
+}
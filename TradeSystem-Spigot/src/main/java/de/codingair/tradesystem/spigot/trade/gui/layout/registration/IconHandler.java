@@ -22,6 +22,8 @@ import java.util.*;
 public class IconHandler {
     private static final HashMap<String, Class<? extends TradeIcon>> TRADE_ICONS = new HashMap<>();
     private static final LinkedHashMap<Class<? extends TradeIcon>, EditorInfo> ICON_DATA = new LinkedHashMap<>();
+    private static final HashMap<Class<? extends TradeIcon>, IconFactory> FACTORIES = new HashMap<>();
+    private static final HashMap<Class<? extends TradeIcon>, TransitionDispatcher> TRANSITIONS = new HashMap<>();
 
     public static void init() {
         TradeSystem.setIconController(new IconController() {
@@ -34,6 +36,8 @@ public class IconHandler {
             public void clear() {
                 TRADE_ICONS.clear();
                 ICON_DATA.clear();
+                FACTORIES.clear();
+                TRANSITIONS.clear();
             }
         });
     }
@@ -54,13 +58,17 @@ public class IconHandler {
     /**
      * @param tradeIcon The trade icon class to register.
      * @param info      The icon info of the registering icon.
-     * @throws TradeIconException If the icon is not valid or 'transitionOrigin' is not registered.
+     * @throws TradeIconException If the icon is not valid, 'transitionOrigin' is not registered or the origin cannot inform this icon.
      */
     public static void register(@NotNull Class<? extends TradeIcon> tradeIcon, @NotNull TransitionTargetEditorInfo info) throws TradeIconException {
+        EditorInfo origin = getInfo(info.getOrigin());
+        TransitionDispatcher dispatcher = TransitionDispatcher.compile(info.getOrigin(), tradeIcon);
+
         //check icon first before adding additional information
         register(tradeIcon, (EditorInfo) info);
 
-        getInfo(info.getOrigin()).setTransitionTarget(tradeIcon);
+        origin.setTransitionTarget(tradeIcon);
+        TRANSITIONS.put(info.getOrigin(), dispatcher);
     }
 
     /**
@@ -106,6 +114,9 @@ public class IconHandler {
             TRADE_ICONS.put(tradeIcon.getSimpleName(), tradeIcon);
             data.setTradeIcon(tradeIcon);
             ICON_DATA.put(tradeIcon, data);
+
+            //forced icons will be compiled when they are needed
+            if (!force) FACTORIES.put(tradeIcon, IconFactory.compile(tradeIcon));
         } catch (NoSuchMethodException e) {
             throw new NoProperConstructorException(tradeIcon);
         } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
@@ -165,6 +176,25 @@ public class IconHandler {
         return icon;
     }
 
+    /**
+     * @param icon The registered trade icon class.
+     * @return The compiled factory of the given trade icon class.
+     */
+    @NotNull
+    public static IconFactory getFactory(@NotNull Class<? extends TradeIcon> icon) {
+        IconFactory factory = FACTORIES.get(icon);
+        if (factory != null) return factory;
+
+        try {
+            factory = IconFactory.compile(icon);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("The TradeIcon " + icon.getName() + " could not be initiated.", e);
+        }
+
+        FACTORIES.put(icon, factory);
+        return factory;
+    }
+
     @NotNull
     public static Class<? extends TradeIcon> getTransitionTarget(@NotNull Class<? extends TradeIcon> icon) {
         EditorInfo info = getInfo(icon);
@@ -175,6 +205,17 @@ public class IconHandler {
         return target;
     }
 
+    /**
+     * @param icon The registered {@link Transition} icon class.
+     * @return The dispatcher which informs the transition target of the given icon.
+     */
+    @NotNull
+    public static TransitionDispatcher getTransition(@NotNull Class<? extends TradeIcon> icon) {
+        TransitionDispatcher dispatcher = TRANSITIONS.get(icon);
+        if (dispatcher == null) throw new IllegalStateException("Could not found a transition target for " + icon.getName());
+        return dispatcher;
+    }
+
     public static boolean isTypeEmpty(@NotNull Type type) {
         for (EditorInfo value : ICON_DATA.values()) {
             if (type.equals(value.getType())) return false;
@@ -0,0 +1,94 @@
+package de.codingair.tradesystem.spigot.trade.gui.layout.registration;
+
+import de.codingair.tradesystem.spigot.trade.gui.layout.registration.exceptions.InvalidTransitionException;
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.TradeIcon;
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.Transition;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Informs the transition target of a {@link Transition} icon. The inform method will be resolved once when the target is registered, so a transition
+ * only costs a map lookup and a direct call.
+ */
+public class TransitionDispatcher {
+    private static final MethodType INFORM = MethodType.methodType(void.class, TradeIcon.class, TradeIcon.class);
+
+    private final Class<? extends TradeIcon> origin;
+    private final Class<? extends TradeIcon> target;
+    private final MethodHandle inform;
+
+    private TransitionDispatcher(@NotNull Class<? extends TradeIcon> origin, @NotNull Class<? extends TradeIcon> target, @NotNull MethodHandle inform) {
+        this.origin = origin;
+        this.target = target;
+        this.inform = inform;
+    }
+
+    /**
+     * @param origin The transition icon class.
+     * @param target The icon class which consumes the transition.
+     * @return A dispatcher which calls the inform method of the origin.
+     * @throws InvalidTransitionException If the origin is no {@link Transition}, the target is no {@link Transition.Consumer} or the origin has no
+     *                                    inform method which accepts the target.
+     */
+    @NotNull
+    static TransitionDispatcher compile(@NotNull Class<? extends TradeIcon> origin, @NotNull Class<? extends TradeIcon> target) throws InvalidTransitionException {
+        if (!Transition.class.isAssignableFrom(origin)) throw new InvalidTransitionException(origin, target, "The origin does not implement " + Transition.class.getName());
+        if (!Transition.Consumer.class.isAssignableFrom(target)) throw new InvalidTransitionException(origin, target, "The target does not implement " + Transition.Consumer.class.getName());
+
+        Method method = findInform(origin, target);
+        if (method == null) throw new InvalidTransitionException(origin, target, "The origin has no inform method which accepts the target");
+
+        try {
+            MethodHandle inform = MethodHandles.publicLookup().unreflect(method).asType(INFORM);
+            return new TransitionDispatcher(origin, target, inform);
+        } catch (IllegalAccessException e) {
+            throw new InvalidTransitionException(origin, target, e);
+        }
+    }
+
+    @Nullable
+    private static Method findInform(@NotNull Class<? extends TradeIcon> origin, @NotNull Class<? extends TradeIcon> target) {
+        try {
+            return origin.getMethod("inform", target);
+        } catch (NoSuchMethodException ignored) {
+        }
+
+        //might be a generic
+        for (Method method : origin.getMethods()) {
+            if (!method.getName().equals("inform") || method.getParameterCount() != 1 || Modifier.isStatic(method.getModifiers())) continue;
+            if (method.getParameterTypes()[0].isAssignableFrom(target)) return method;
+        }
+
+        return null;
+    }
+
+    /**
+     * @param icon     The transition icon.
+     * @param consumer The icon which must be informed.
+     */
+    public void inform(@NotNull TradeIcon icon, @NotNull TradeIcon consumer) {
+        try {
+            inform.invokeExact(icon, consumer);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Cannot execute method inform(TradeIcon) of " + origin.getName(), t);
+        }
+    }
+
+    @NotNull
+    public Class<? extends TradeIcon> getOrigin() {
+        return origin;
+    }
+
+    @NotNull
+    public Class<? extends TradeIcon> getTarget() {
+        return target;
+    }
+}
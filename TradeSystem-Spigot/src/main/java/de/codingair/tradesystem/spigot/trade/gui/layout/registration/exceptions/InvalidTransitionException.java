@@ -0,0 +1,13 @@
+package de.codingair.tradesystem.spigot.trade.gui.layout.registration.exceptions;
+
+import de.codingair.tradesystem.spigot.trade.gui.layout.types.TradeIcon;
+
+public class InvalidTransitionException extends TradeIconException {
+    public InvalidTransitionException(Class<? extends TradeIcon> origin, Class<? extends TradeIcon> target, String reason) {
+        super("The transition from " + origin.getName() + " to " + target.getName() + " is not valid: " + reason);
+    }
+
+    public InvalidTransitionException(Class<? extends TradeIcon> origin, Class<? extends TradeIcon> target, Throwable cause) {
+        super("The transition from " + origin.getName() + " to " + target.getName() + " is not valid.", cause);
+    }
+}
@@ -0,0 +1,91 @@
+package de.codingair.tradesystem.spigot.trade.gui.layout.shulker;
+
+import de.codingair.tradesystem.spigot.utils.ShulkerBoxHelper;
+import org.bukkit.Material;
+import org.bukkit.block.ShulkerBox;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BlockStateMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Caches the decoded contents of shulker boxes in the trade GUIs. Reading the contents deserializes the whole block state of the item, so each item
+ * will be decoded only once per slot. Entries must be invalidated when the item of a slot changes.
+ * <p>
+ * Entries are bound to the slot and not to the {@link ItemStack} instance since Bukkit returns a new mirror of the same item on every inventory
+ * access.
+ * <p>
+ * Cannot be used in Minecraft v1.10 and below.
+ */
+public class ShulkerContentCache {
+    private static final int SLOTS = 54;
+
+    private final Entry[][] entries = new Entry[2][SLOTS];
+
+    /**
+     * @param id   The id of the player who owns the GUI.
+     * @param slot The slot of the item in the trade GUI.
+     * @param item The current item of the slot.
+     * @return The contents of the shulker box or null if the item is not a shulker box. Must not be modified.
+     */
+    public @Nullable ItemStack @Nullable [] getContents(int id, int slot, @Nullable ItemStack item) {
+        if (item == null || !ShulkerBoxHelper.isShulkerBox(item.getType())) return null;
+        if (slot < 0 || slot >= SLOTS) return decode(item);
+
+        Entry entry = entries[id][slot];
+        if (entry == null || !entry.matches(item)) {
+            entry = new Entry(item.getType(), item.getAmount(), decode(item));
+            entries[id][slot] = entry;
+        }
+
+        return entry.contents;
+    }
+
+    /**
+     * @param id   The id of the player who owns the GUI.
+     * @param slot The slot whose item has been changed.
+     */
+    public void invalidate(int id, int slot) {
+        if (slot >= 0 && slot < SLOTS) entries[id][slot] = null;
+    }
+
+    /**
+     * @param id The id of the player whose GUI has been changed.
+     */
+    public void invalidate(int id) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            entries[id][slot] = null;
+        }
+    }
+
+    @Nullable
+    private static ItemStack[] decode(@NotNull ItemStack item) {
+        if (!item.hasItemMeta()) return null;
+
+        ItemMeta meta = item.getItemMeta();
+        if (meta instanceof BlockStateMeta) {
+            BlockStateMeta im = (BlockStateMeta) meta;
+            if (im.getBlockState() instanceof ShulkerBox) return ((ShulkerBox) im.getBlockState()).getInventory().getContents();
+        }
+
+        return null;
+    }
+
+    private static class Entry {
+        private final Material type;
+        private final int amount;
+        private final ItemStack[] contents;
+
+        private Entry(@NotNull Material type, int amount, @Nullable ItemStack[] contents) {
+            this.type = type;
+            this.amount = amount;
+            this.contents = contents;
+        }
+
+        // cheap sanity check for changes which were not reported
+        private boolean matches(@NotNull ItemStack item) {
+            return type == item.getType() && amount == item.getAmount();
+        }
+    }
+}
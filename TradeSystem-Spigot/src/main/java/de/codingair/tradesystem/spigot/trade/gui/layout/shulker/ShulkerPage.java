@@ -9,26 +9,23 @@ import de.codingair.codingapi.tools.items.ItemBuilder;
 import de.codingair.codingapi.tools.items.XMaterial;
 import de.codingair.tradesystem.spigot.utils.Head;
 import de.codingair.tradesystem.spigot.utils.Lang;
-import org.bukkit.block.ShulkerBox;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.Nullable;
 
 public class ShulkerPage extends Page {
-    private ShulkerBox box;
+    private ItemStack[] contents;
 
-    public ShulkerPage(ShulkerPeekGUI gui, ShulkerBox box) {
+    public ShulkerPage(ShulkerPeekGUI gui, ItemStack[] contents) {
         super(gui);
-        this.box = box;
+        this.contents = contents;
     }
 
     @Override
     public void buildItems() {
-        Inventory box = this.box.getInventory();
-        for (int i = 0; i < box.getSize(); i++) {
-            addButton(i, new Item(box.getItem(i)));
+        for (int i = 0; i < this.contents.length; i++) {
+            addButton(i, new Item(this.contents[i]));
         }
 
         ItemStack item = new ItemBuilder(XMaterial.BLACK_STAINED_GLASS_PANE).setHideName(true).getItem();
@@ -55,8 +52,8 @@ public class ShulkerPage extends Page {
         });
     }
 
-    public void update(ShulkerBox box) {
-        this.box = box;
+    public void update(ItemStack[] contents) {
+        this.contents = contents;
         rebuild();
     }
 }
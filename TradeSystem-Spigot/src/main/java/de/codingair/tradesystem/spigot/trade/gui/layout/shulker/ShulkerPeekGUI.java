@@ -3,46 +3,51 @@ package de.codingair.tradesystem.spigot.trade.gui.layout.shulker;
 import de.codingair.codingapi.player.gui.inventory.v2.GUI;
 import de.codingair.tradesystem.spigot.TradeSystem;
 import de.codingair.tradesystem.spigot.utils.Lang;
+import de.codingair.tradesystem.spigot.utils.ShulkerBoxHelper;
 import org.bukkit.block.ShulkerBox;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BlockStateMeta;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class ShulkerPeekGUI extends GUI {
     private final int originalSlot;
 
     public ShulkerPeekGUI(Player player, ItemStack item, int originalSlot) {
+        this(player, getContentsFrom(item), originalSlot);
+    }
+
+    /**
+     * @param player       The viewing player.
+     * @param contents     The decoded contents of the shulker box (see {@link ShulkerContentCache}).
+     * @param originalSlot The slot of the shulker box in the trade GUI.
+     */
+    public ShulkerPeekGUI(Player player, @NotNull ItemStack[] contents, int originalSlot) {
         super(player, TradeSystem.getInstance(), 36, Lang.get("Shulker_Box", player), true);
         this.originalSlot = originalSlot;
 
-        ShulkerBox box = getBoxFrom(item);
-        if (box != null) {
-            super.registerPage(new ShulkerPage(this, box), true);
-            return;
-        }
-
-        throw new IllegalArgumentException("Not a shulker box!");
+        super.registerPage(new ShulkerPage(this, contents), true);
     }
 
-    @Nullable
-    private ShulkerBox getBoxFrom(ItemStack item) {
+    @NotNull
+    private static ItemStack[] getContentsFrom(ItemStack item) {
         if (item.hasItemMeta() && item.getItemMeta() instanceof BlockStateMeta) {
             BlockStateMeta b = (BlockStateMeta) item.getItemMeta();
 
             if (b.getBlockState() instanceof ShulkerBox) {
-                return (ShulkerBox) b.getBlockState();
+                return ((ShulkerBox) b.getBlockState()).getInventory().getContents();
             }
         }
 
-        return null;
+        throw new IllegalArgumentException("Not a shulker box!");
     }
 
     public int getOriginalSlot() {
         return originalSlot;
     }
 
-    public static boolean isShulkerBox(ItemStack item) {
-        return item != null && item.hasItemMeta() && item.getItemMeta() instanceof BlockStateMeta && ((BlockStateMeta) item.getItemMeta()).getBlockState() instanceof ShulkerBox;
+    public static boolean isShulkerBox(@Nullable ItemStack item) {
+        return item != null && ShulkerBoxHelper.isShulkerBox(item.getType()) && item.hasItemMeta() && item.getItemMeta() instanceof BlockStateMeta && ((BlockStateMeta) item.getItemMeta()).getBlockState() instanceof ShulkerBox;
     }
 }
@@ -64,6 +64,11 @@ public abstract class InputIcon<G> extends LayoutIcon implements TradeIcon, Clic
                         return InputIcon.this.prepareItemStack(layout, trade, player, other, othersName);
                     }
 
+                    @Override
+                    public @Nullable Object getRenderState(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
+                        return InputIcon.this.getRenderState(trade, player, other, othersName);
+                    }
+
                     @Override
                     public boolean isClickable(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
                         return InputIcon.this.isClickable(trade, player, other, othersName);
@@ -129,6 +134,11 @@ public abstract class InputIcon<G> extends LayoutIcon implements TradeIcon, Clic
                         return InputIcon.this.prepareItemStack(layout, trade, player, other, othersName);
                     }
 
+                    @Override
+                    public @Nullable Object getRenderState(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
+                        return InputIcon.this.getRenderState(trade, player, other, othersName);
+                    }
+
                     @Override
                     public boolean isClickable(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
                         return InputIcon.this.isClickable(trade, player, other, othersName);
@@ -8,6 +8,10 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public interface ItemPrepareIcon {
+    /**
+     * A render state for icons whose {@link ItemStack} never changes.
+     */
+    Object CONSTANT_STATE = new Object();
 
     /**
      * @param layout     The {@link ItemBuilder} which was chosen for the layout.
@@ -18,4 +22,18 @@ public interface ItemPrepareIcon {
      * @return An {@link ItemBuilder} used to build an {@link ItemStack} to represent this trade icon in the trade GUI.
      */
     @NotNull ItemBuilder prepareItemStack(@NotNull ItemBuilder layout, @NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName);
+
+    /**
+     * The rendered {@link ItemStack} will be reused until the returned state changes. The state must contain everything which is used in
+     * {@link #prepareItemStack(ItemBuilder, Trade, Player, Player, String)}, e.g. the current value of an input icon.
+     *
+     * @param trade      The {@link Trade} instance.
+     * @param player     The trading {@link Player}.
+     * @param other      The trading {@link Player}. Null, if this is a proxy trade.
+     * @param othersName The name of 'other'. Useful for proxy trades.
+     * @return The current render state. Null, if the item must be rendered on every update.
+     */
+    default @Nullable Object getRenderState(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
+        return null;
+    }
 }
@@ -1,12 +1,43 @@
 package de.codingair.tradesystem.spigot.trade.gui.layout.types;
 
+import de.codingair.codingapi.tools.items.ItemBuilder;
+import de.codingair.tradesystem.spigot.trade.Trade;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
 
 public class LayoutIcon {
     protected final ItemStack itemStack;
 
+    // last rendered item and the state which it was rendered for
+    private Object renderState;
+    private ItemStack rendered;
+
     public LayoutIcon(@NotNull ItemStack itemStack) {
         this.itemStack = itemStack;
     }
+
+    /**
+     * Builds the {@link ItemStack} of the given icon. The item will be reused as long as {@link ItemPrepareIcon#getRenderState(Trade, Player, Player,
+     * String)} returns an equal state. Therefore, the returned item must not be modified.
+     *
+     * @param icon       The icon which prepares the layout item.
+     * @param trade      The {@link Trade} instance.
+     * @param player     The trading {@link Player}.
+     * @param other      The trading {@link Player}. Null, if this is a proxy trade.
+     * @param othersName The name of 'other'. Useful for proxy trades.
+     * @return The rendered {@link ItemStack}.
+     */
+    protected final ItemStack render(@NotNull ItemPrepareIcon icon, @NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
+        Object state = icon.getRenderState(trade, player, other, othersName);
+        if (state != null && this.rendered != null && Objects.equals(state, this.renderState)) return this.rendered;
+
+        ItemStack item = icon.prepareItemStack(new ItemBuilder(itemStack), trade, player, other, othersName).getItem();
+        this.renderState = state;
+        this.rendered = state == null ? null : item;
+        return item;
+    }
 }
@@ -2,7 +2,6 @@ package de.codingair.tradesystem.spigot.trade.gui.layout.types;
 
 import de.codingair.codingapi.player.gui.inventory.v2.GUI;
 import de.codingair.codingapi.player.gui.inventory.v2.buttons.Button;
-import de.codingair.codingapi.tools.items.ItemBuilder;
 import de.codingair.tradesystem.spigot.trade.Trade;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.feedback.IconResult;
 import org.bukkit.entity.Player;
@@ -25,7 +24,7 @@ public abstract class SimpleTradeIcon extends LayoutIcon implements TradeIcon, C
 
             @Override
             public ItemStack buildItem() {
-                return prepareItemStack(new ItemBuilder(itemStack), trade, player, other, othersName).getItem();
+                return render(SimpleTradeIcon.this, trade, player, other, othersName);
             }
 
             @Override
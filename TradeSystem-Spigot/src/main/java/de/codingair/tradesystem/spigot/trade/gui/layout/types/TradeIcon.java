@@ -90,7 +90,7 @@ public interface TradeIcon {
 
         TradingGUI gui = trade.getGUIs()[playerId];
         Button button = gui.getActive().getButtonAt(slot);
-        gui.setItem(slot, button.buildItem());
+        gui.setItemIfChanged(slot, button.buildItem());
     }
 
     /**
@@ -108,7 +108,7 @@ public interface TradeIcon {
         TradingGUI gui = trade.getGUIs()[playerId];
         Button button = getButton(trade, player, trade.getOther(player).orElse(null), trade.getOther(player.getName()));
         gui.getActive().addButton(slot, button);
-        gui.setItem(slot, button.buildItem());
+        gui.setItemIfChanged(slot, button.buildItem());
     }
 
     /**
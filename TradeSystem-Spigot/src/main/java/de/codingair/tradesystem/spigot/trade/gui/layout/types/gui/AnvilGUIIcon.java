@@ -5,7 +5,6 @@ import de.codingair.codingapi.player.gui.anvil.AnvilSlot;
 import de.codingair.codingapi.player.gui.inventory.v2.GUI;
 import de.codingair.codingapi.player.gui.inventory.v2.buttons.AnvilButton;
 import de.codingair.codingapi.player.gui.inventory.v2.buttons.Button;
-import de.codingair.codingapi.tools.items.ItemBuilder;
 import de.codingair.tradesystem.spigot.trade.Trade;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.*;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.feedback.IconResult;
@@ -52,7 +51,7 @@ public abstract class AnvilGUIIcon<G> extends LayoutIcon implements TradeIcon, C
 
             @Override
             public ItemStack buildItem() {
-                return prepareItemStack(new ItemBuilder(itemStack), trade, player, other, othersName).getItem();
+                return render(AnvilGUIIcon.this, trade, player, other, othersName);
             }
 
             @Override
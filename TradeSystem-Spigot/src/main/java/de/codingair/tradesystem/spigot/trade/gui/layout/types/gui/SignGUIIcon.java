@@ -3,7 +3,6 @@ package de.codingair.tradesystem.spigot.trade.gui.layout.types.gui;
 import de.codingair.codingapi.player.gui.inventory.v2.GUI;
 import de.codingair.codingapi.player.gui.inventory.v2.buttons.Button;
 import de.codingair.codingapi.player.gui.inventory.v2.buttons.SignButton;
-import de.codingair.codingapi.tools.items.ItemBuilder;
 import de.codingair.tradesystem.spigot.trade.Trade;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.*;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.feedback.IconResult;
@@ -54,7 +53,7 @@ public abstract class SignGUIIcon<G> extends LayoutIcon implements TradeIcon, Cl
 
             @Override
             public ItemStack buildItem() {
-                return prepareItemStack(new ItemBuilder(itemStack), trade, player, other, othersName).getItem();
+                return render(SignGUIIcon.this, trade, player, other, othersName);
             }
 
             @Override
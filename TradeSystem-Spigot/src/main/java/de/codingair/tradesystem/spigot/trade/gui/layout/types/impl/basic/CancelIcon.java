@@ -27,6 +27,11 @@ public class CancelIcon extends SimpleTradeIcon {
         return layout;
     }
 
+    @Override
+    public @Nullable Object getRenderState(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
+        return CONSTANT_STATE;
+    }
+
     @Override
     public boolean isClickable(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
         return true;
@@ -50,6 +50,11 @@ public class ShowStatusIcon extends MultiTradeIcon {
         public @NotNull ItemBuilder prepareItemStack(@NotNull ItemBuilder layout, @NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
             return layout.setName("§7" + Lang.get("Status", player) + ": §a" + Lang.get("Ready", player));
         }
+
+        @Override
+        public @Nullable Object getRenderState(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
+            return CONSTANT_STATE;
+        }
     }
 
     public static class ShowNotReadyIcon extends DecorationIcon {
@@ -61,5 +66,10 @@ public class ShowStatusIcon extends MultiTradeIcon {
         public @NotNull ItemBuilder prepareItemStack(@NotNull ItemBuilder layout, @NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
             return layout.setName("§7" + Lang.get("Status", player) + ": §c" + Lang.get("Not_Ready", player));
         }
+
+        @Override
+        public @Nullable Object getRenderState(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
+            return CONSTANT_STATE;
+        }
     }
 }
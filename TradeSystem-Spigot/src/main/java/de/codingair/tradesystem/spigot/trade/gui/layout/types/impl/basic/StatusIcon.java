@@ -72,6 +72,11 @@ public class StatusIcon extends MultiTradeIcon {
             return layout;
         }
 
+        @Override
+        public @Nullable Object getRenderState(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
+            return CONSTANT_STATE;
+        }
+
         @Override
         public boolean isClickable(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
             return true;
@@ -118,6 +123,11 @@ public class StatusIcon extends MultiTradeIcon {
             return layout;
         }
 
+        @Override
+        public @Nullable Object getRenderState(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
+            return CONSTANT_STATE;
+        }
+
         @Override
         public boolean isClickable(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
             return true;
@@ -164,6 +174,11 @@ public class StatusIcon extends MultiTradeIcon {
             return layout;
         }
 
+        @Override
+        public @Nullable Object getRenderState(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
+            return CONSTANT_STATE;
+        }
+
         @Override
         public boolean isClickable(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
             return false;
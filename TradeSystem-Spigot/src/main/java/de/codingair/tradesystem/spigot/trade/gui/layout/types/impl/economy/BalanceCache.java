@@ -0,0 +1,75 @@
+package de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.economy;
+
+import de.codingair.tradesystem.spigot.TradeSystem;
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the balances of the trading players for each economy icon type of a trade. Economy plugins are often backed by a database, so the balance
+ * will be reused for a configurable time instead of asking the economy provider on every click.
+ * <p>
+ * The cache is discarded together with its trade. Balances are only changed by the settlement when the trade is finished, so cached entries never
+ * have to be dropped manually.
+ */
+public class BalanceCache {
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private final Map<Class<?>, Map<UUID, Entry>> balances = new HashMap<>();
+
+    /**
+     * @param type     The economy icon type.
+     * @param uniqueId The id of the player.
+     * @param lookup   The balance lookup which will be used when no valid balance is cached.
+     * @return The balance of the player.
+     */
+    @NotNull
+    public synchronized BigDecimal get(@NotNull Class<?> type, @NotNull UUID uniqueId, @NotNull Supplier<BigDecimal> lookup) {
+        long time = TradeSystem.man().getBalanceCacheTime();
+        if (time <= 0) return lookup.get();
+
+        long now = System.currentTimeMillis();
+        Map<UUID, Entry> map = balances.computeIfAbsent(type, $ -> new HashMap<>());
+
+        Entry entry = map.get(uniqueId);
+        if (entry != null && now - entry.time < time) {
+            HITS.incrementAndGet();
+            return entry.balance;
+        }
+
+        MISSES.incrementAndGet();
+        BigDecimal balance = lookup.get();
+        map.put(uniqueId, new Entry(balance, now));
+        return balance;
+    }
+
+    /**
+     * @return The amount of balance lookups which were answered by a cache.
+     */
+    public static long getHits() {
+        return HITS.get();
+    }
+
+    /**
+     * @return The amount of balance lookups which had to ask the economy provider.
+     */
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    private static class Entry {
+        private final BigDecimal balance;
+        private final long time;
+
+        private Entry(@NotNull BigDecimal balance, long time) {
+            this.balance = balance;
+            this.time = time;
+        }
+    }
+}
@@ -27,12 +27,14 @@ import java.math.RoundingMode;
 import java.text.ParsePosition;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public abstract class EconomyIcon<T extends Transition.Consumer<BigDecimal> & TradeIcon> extends InputIcon<BigDecimal> implements Transition<T, BigDecimal> {
     private final String nameSingular;
     private final String namePlural;
     private final boolean decimal;
     private BigDecimal value = BigDecimal.ZERO;
+    private CompletableFuture<BigDecimal> snapshot = null;
 
     /**
      * @param itemStack    The item that will be used to show this icon.
@@ -49,7 +51,7 @@ public abstract class EconomyIcon<T extends Transition.Consumer<BigDecimal> & Tr
 
     @Override
     public boolean isClickable(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
-        if (getBalance(player).signum() <= 0) {
+        if (getCachedBalance(trade, player).signum() <= 0) {
             player.sendMessage(Lang.getPrefix() + Lang.get("Balance_limit_reached", player));
             return false;
         }
@@ -87,7 +89,7 @@ public abstract class EconomyIcon<T extends Transition.Consumer<BigDecimal> & Tr
             return IconResult.GUI;
         }
 
-        BigDecimal max = getBalance(player);
+        BigDecimal max = getCachedBalance(trade, player);
         if (input.compareTo(max) > 0) {
             String s = Lang.get("Only_X_Amount")
                     .replace("%amount%", makeString(player, max))
@@ -136,6 +138,11 @@ public abstract class EconomyIcon<T extends Transition.Consumer<BigDecimal> & Tr
         return layout;
     }
 
+    @Override
+    public @Nullable Object getRenderState(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
+        return value;
+    }
+
     @NotNull
     public String getName(@NotNull Player player, boolean singular) {
         try {
@@ -145,15 +152,65 @@ public abstract class EconomyIcon<T extends Transition.Consumer<BigDecimal> & Tr
         }
     }
 
+    /**
+     * Looks up the balance of the given player off the main thread. Called when the countdown starts, so the balance is already known when the trade
+     * will be finished.
+     *
+     * @param player The trading player.
+     */
+    public void snapshotBalance(@NotNull Player player) {
+        if (!isAsyncSettlement() || value.signum() <= 0) {
+            this.snapshot = null;
+            return;
+        }
+
+        this.snapshot = TradeSystem.man().getEconomySettlementQueue().supply(() -> getBalance(player));
+    }
+
     @Override
     public @NotNull FinishResult tryFinish(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName, boolean initiationServer) {
-        if (value.signum() > 0 && getBalance(player).compareTo(value) < 0) {
+        if (value.signum() > 0 && getSnapshotBalance(player).compareTo(value) < 0) {
             return FinishResult.ERROR_ECONOMY;
         }
 
         return FinishResult.PASS;
     }
 
+    @NotNull
+    private BigDecimal getSnapshotBalance(@NotNull Player player) {
+        CompletableFuture<BigDecimal> snapshot = this.snapshot;
+        this.snapshot = null;
+
+        // fall back to a direct lookup if the snapshot is not available (yet)
+        if (snapshot == null || !snapshot.isDone() || snapshot.isCompletedExceptionally()) return getBalance(player);
+        return snapshot.join();
+    }
+
+    /**
+     * Adds the transaction of the given player to the economy batch of the trade. The batch will be executed before any item is exchanged.
+     *
+     * @param trade  The trade instance.
+     * @param player The trading player.
+     * @param batch  The economy batch of the trade.
+     */
+    public void prepareSettlement(@NotNull Trade trade, @NotNull Player player, @NotNull EconomySettlementQueue.Batch batch) {
+        BigDecimal diff = getOverallDifference(trade, trade.getId(player));
+
+        int sign = diff.signum();
+        if (sign == 0) return;
+        if (!isAsyncSettlement()) batch.requireMainThread();
+
+        if (sign < 0) {
+            BigDecimal amount = diff.negate();
+            batch.withdraw(player.getName() + " pays " + amount.toPlainString() + " " + namePlural, () -> withdraw(player, amount), () -> deposit(player, amount));
+        } else {
+            batch.deposit(player.getName() + " receives " + diff.toPlainString() + " " + namePlural, () -> deposit(player, diff), () -> withdraw(player, diff));
+        }
+    }
+
+    /**
+     * Called on the server thread after the economy batch of the trade was executed successfully.
+     */
     @Override
     public void onFinish(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName, boolean initiationServer) {
         int id = trade.getId(player);
@@ -163,11 +220,8 @@ public abstract class EconomyIcon<T extends Transition.Consumer<BigDecimal> & Tr
 
         int sign = diff.signum();
         if (sign < 0) {
-            withdraw(player, diff.negate());
             log(trade, TradeLog.OFFERED_AMOUNT, player.getName(), namePlural, fancyDiff);
         } else if (sign > 0) {
-            deposit(player, diff);
-
             // call economy receive event for external logging purposes
             TradeReceiveEconomyEvent e = other != null ?
                     new TradeReceiveEconomyEvent(player, other, diff, nameSingular, namePlural) :
@@ -175,6 +229,7 @@ public abstract class EconomyIcon<T extends Transition.Consumer<BigDecimal> & Tr
             Bukkit.getPluginManager().callEvent(e);
 
             log(trade, TradeLog.RECEIVED_AMOUNT, player.getName(), namePlural, fancyDiff);
+            trade.getRecord().addEconomy(player.getName(), namePlural, diff);
         }
     }
 
@@ -195,7 +250,7 @@ public abstract class EconomyIcon<T extends Transition.Consumer<BigDecimal> & Tr
         if (other == null) return value;
 
         return getBalanceLimit(other).map(limit -> {
-            BigDecimal balance = getBalance(other);
+            BigDecimal balance = getCachedBalance(trade, other);
             if (balance.add(value).compareTo(limit) > 0) {
                 return limit.subtract(balance).max(BigDecimal.ZERO);
             } else return value;
@@ -207,6 +262,27 @@ public abstract class EconomyIcon<T extends Transition.Consumer<BigDecimal> & Tr
         return Optional.empty();
     }
 
+    /**
+     * Economy plugins which are backed by a database should allow async settlements to keep their calls away from the server thread. In this case,
+     * {@link #getBalance(Player)}, {@link #withdraw(Player, BigDecimal)} and {@link #deposit(Player, BigDecimal)} must be thread-safe and failed
+     * transactions must throw an exception.
+     *
+     * @return True if balances and transactions of this icon can be handled off the main thread.
+     */
+    protected boolean isAsyncSettlement() {
+        return false;
+    }
+
+    /**
+     * @param trade  The trade instance.
+     * @param player The player whose balance is requested.
+     * @return The balance of the given player which might be cached by the trade for a short time.
+     */
+    @NotNull
+    protected BigDecimal getCachedBalance(@NotNull Trade trade, @NotNull Player player) {
+        return trade.getBalanceCache().get(getClass(), player.getUniqueId(), () -> getBalance(player));
+    }
+
     protected abstract @NotNull BigDecimal getBalance(Player player);
 
     protected abstract void withdraw(Player player, @NotNull BigDecimal value);
@@ -0,0 +1,211 @@
+package de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.economy;
+
+import de.codingair.tradesystem.spigot.TradeSystem;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Executes balance lookups and economy transactions of {@link EconomyIcon}s on a single worker thread. Economy plugins are often backed by a
+ * database, so these calls must not block the server thread. Jobs are executed in the order they were submitted.
+ */
+public class EconomySettlementQueue {
+    private ExecutorService executor;
+    private final Queue<Runnable> completions = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Looks up a balance on the worker thread.
+     *
+     * @param supplier The balance lookup.
+     * @param <T>      The type of the balance.
+     * @return A future which will be completed with the balance.
+     */
+    @NotNull
+    public synchronized <T> CompletableFuture<T> supply(@NotNull Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor());
+    }
+
+    /**
+     * Executes all transactions of the given batch as one job on the worker thread. Batches which contain transactions of economies that are not
+     * thread-safe will be executed directly on the calling thread which must be the server thread.
+     *
+     * @param batch The transactions of a trade.
+     * @return A future which will be completed with true if all transactions were successful. Otherwise, all transactions have been reverted.
+     */
+    @NotNull
+    public synchronized CompletableFuture<Boolean> submit(@NotNull Batch batch) {
+        if (batch.isEmpty()) return CompletableFuture.completedFuture(true);
+        if (batch.isMainThreadRequired()) return CompletableFuture.completedFuture(batch.execute());
+        return CompletableFuture.supplyAsync(batch::execute, executor());
+    }
+
+    /**
+     * Runs the completion of a batch on the server thread. Completions of the worker thread will be passed to the server thread and run at the
+     * latest when the queue shuts down. Bukkit code must never run on the worker thread.
+     *
+     * @param completion The completion of a batch.
+     */
+    public void complete(@NotNull Runnable completion) {
+        if (Bukkit.isPrimaryThread()) {
+            completion.run();
+            return;
+        }
+
+        completions.add(completion);
+
+        // the scheduler cannot be used while disabling; the shutdown runs all remaining completions
+        if (TradeSystem.getInstance().isEnabled()) Bukkit.getScheduler().runTask(TradeSystem.getInstance(), this::runCompletions);
+    }
+
+    /**
+     * Waits for all pending jobs and stops the worker thread. Must be called on the server thread since all remaining completions will be run.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS)) TradeSystem.getInstance().getLogger().warning("Could not finish all economy transactions in time.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            executor = null;
+        }
+
+        runCompletions();
+    }
+
+    private void runCompletions() {
+        Runnable completion;
+        while ((completion = completions.poll()) != null) {
+            completion.run();
+        }
+    }
+
+    @NotNull
+    private ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "TradeSystem-Economy");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return executor;
+    }
+
+    /**
+     * Collects all economy transactions of a trade. Withdrawals will be executed before deposits. If a transaction fails, all previous transactions
+     * will be reverted in reverse order.
+     */
+    public static class Batch {
+        private final String description;
+        private final List<Runnable> withdrawals = new ArrayList<>();
+        private final List<Runnable> withdrawalReverts = new ArrayList<>();
+        private final List<Runnable> deposits = new ArrayList<>();
+        private final List<Runnable> depositReverts = new ArrayList<>();
+        private final List<String> transfers = new ArrayList<>();
+        private boolean mainThreadRequired = false;
+
+        /**
+         * @param description A short description of the trade for error messages.
+         */
+        public Batch(@NotNull String description) {
+            this.description = description;
+        }
+
+        /**
+         * @param transfer   A short description of the transfer, e.g. for the settlement journal.
+         * @param withdrawal The withdrawal. Must throw an exception if it fails.
+         * @param revert     The transaction which reverts the withdrawal.
+         */
+        public synchronized void withdraw(@NotNull String transfer, @NotNull Runnable withdrawal, @NotNull Runnable revert) {
+            withdrawals.add(withdrawal);
+            withdrawalReverts.add(revert);
+            transfers.add(transfer);
+        }
+
+        /**
+         * @param transfer A short description of the transfer, e.g. for the settlement journal.
+         * @param deposit  The deposit. Must throw an exception if it fails.
+         * @param revert   The transaction which reverts the deposit.
+         */
+        public synchronized void deposit(@NotNull String transfer, @NotNull Runnable deposit, @NotNull Runnable revert) {
+            deposits.add(deposit);
+            depositReverts.add(revert);
+            transfers.add(transfer);
+        }
+
+        /**
+         * Forces the batch to be executed on the server thread. Must be called if at least one transaction is not thread-safe.
+         */
+        public synchronized void requireMainThread() {
+            this.mainThreadRequired = true;
+        }
+
+        public synchronized boolean isMainThreadRequired() {
+            return mainThreadRequired;
+        }
+
+        public synchronized boolean isEmpty() {
+            return withdrawals.isEmpty() && deposits.isEmpty();
+        }
+
+        /**
+         * @return The descriptions of all transfers in the order they were added.
+         */
+        @NotNull
+        public synchronized List<String> getTransfers() {
+            return new ArrayList<>(transfers);
+        }
+
+        private synchronized boolean execute() {
+            for (int i = 0; i < withdrawals.size(); i++) {
+                try {
+                    withdrawals.get(i).run();
+                } catch (Throwable t) {
+                    TradeSystem.getInstance().getLogger().log(Level.SEVERE, "Could not withdraw money of the trade " + description + ". All transactions will be reverted.", t);
+                    revert(withdrawalReverts, i, "withdrawal");
+                    return false;
+                }
+            }
+
+            for (int i = 0; i < deposits.size(); i++) {
+                try {
+                    deposits.get(i).run();
+                } catch (Throwable t) {
+                    TradeSystem.getInstance().getLogger().log(Level.SEVERE, "Could not deposit money of the trade " + description + ". All transactions will be reverted.", t);
+                    revert(depositReverts, i, "deposit");
+                    revert(withdrawalReverts, withdrawals.size(), "withdrawal");
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Reverts all transactions before the failed one in reverse order.
+         */
+        private void revert(@NotNull List<Runnable> reverts, int failed, @NotNull String type) {
+            for (int i = failed - 1; i >= 0; i--) {
+                try {
+                    reverts.get(i).run();
+                } catch (Throwable t) {
+                    TradeSystem.getInstance().getLogger().log(Level.SEVERE, "Could not revert a " + type + " of the trade " + description + ". Please check it manually.", t);
+                }
+            }
+        }
+    }
+}
@@ -30,6 +30,11 @@ public class ShowEconomyIcon extends SimpleShowIcon<BigDecimal> implements Trans
         return layout;
     }
 
+    @Override
+    public @Nullable Object getRenderState(@NotNull Trade trade, @NotNull Player player, @Nullable Player other, @NotNull String othersName) {
+        return value;
+    }
+
     @NotNull
     protected String makeString(@NotNull Player player, @NotNull BigDecimal value) {
         return EconomyIcon.makeFancyString(value, true);
@@ -5,13 +5,10 @@ import de.codingair.codingapi.tools.io.utils.DataMask;
 import de.codingair.codingapi.tools.io.utils.Serializable;
 import de.codingair.tradesystem.spigot.trade.gui.layout.registration.IconHandler;
 import de.codingair.tradesystem.spigot.trade.gui.layout.registration.exceptions.IconNotFoundException;
-import de.codingair.tradesystem.spigot.trade.gui.layout.types.MultiTradeIcon;
 import de.codingair.tradesystem.spigot.trade.gui.layout.types.TradeIcon;
-import de.codingair.tradesystem.spigot.trade.gui.layout.types.impl.basic.TradeSlot;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -45,17 +42,7 @@ public class IconData implements Serializable {
     }
 
     public TradeIcon build() {
-        try {
-            if (MultiTradeIcon.class.isAssignableFrom(tradeIcon)) {
-                return tradeIcon.getConstructor(ItemStack[].class).newInstance((Object) items);
-            } else {
-                if (TradeSlot.class.isAssignableFrom(tradeIcon)) return tradeIcon.newInstance();
-                return tradeIcon.getConstructor(ItemStack.class).newInstance(items[0]);
-            }
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-            //we won't get here since we try that while registering these icons
-            throw new IllegalStateException("The TradeIcon " + tradeIcon.getName() + " could not be initiated.", e);
-        }
+        return IconHandler.getFactory(tradeIcon).create(items);
     }
 
     public Class<? extends TradeIcon> getTradeIcon() {
@@ -0,0 +1,703 @@
+package de.codingair.tradesystem.spigot.trade.journal;
+
+import de.codingair.tradesystem.proxy.packets.utils.SerializedItem;
+import de.codingair.tradesystem.spigot.TradeSystem;
+import de.codingair.tradesystem.spigot.transfer.utils.ItemStackUtils;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An append-only journal which records the settlement of finished trades in memory-mapped segment files. A settlement begins with the economy
+ * transfers and the items each local player will receive or get back, followed by a settled record once the economy transfers succeeded, a delivery
+ * record per player and a commit record once all goods have been exchanged. Failed economy transfers close the settlement with a rollback record.
+ * Writes only touch the mapped memory and survive a crash of the server process.
+ * <p>
+ * Settlements without a commit record will be replayed on startup: If the economy transfers were settled, items which have not been delivered yet
+ * will be handed to their receiver on the next join. Otherwise, the players get their offered items back.
+ */
+public class SettlementJournal {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("settlements\\.(\\d+)\\.journal");
+    private static final int INITIAL_SIZE = 1 << 20;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int HEADER_SIZE = 1 + 4 + 8;
+
+    private static final byte BEGIN = 1;
+    private static final byte DELIVERED = 2;
+    private static final byte COMMIT = 3;
+    private static final byte SETTLED = 4;
+    private static final byte ROLLBACK = 5;
+
+    private final Map<Long, Settlement> open = new LinkedHashMap<>();
+    private final Map<UUID, List<Settlement>> recoveries = new HashMap<>();
+    private final List<File> outdated = new ArrayList<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long generation = 0;
+    private int position = 0;
+    private long nextId = 1;
+    private boolean rewriting = false;
+
+    private long writes = 0;
+    private long writeNanos = 0;
+
+    /**
+     * Opens the latest complete segment of the journal and replays all interrupted settlements.
+     */
+    public synchronized void open() {
+        File folder = TradeSystem.getInstance().getDataFolder();
+        if (!folder.exists()) folder.mkdirs();
+
+        try {
+            openLatestSegment(folder);
+        } catch (IOException e) {
+            TradeSystem.getInstance().getLogger().log(Level.SEVERE, "Could not open the settlement journal. Trades will be settled without journal.", e);
+            release();
+            return;
+        }
+
+        if (this.buffer != null) replay();
+
+        int interrupted = this.open.size();
+        if (interrupted > 0) {
+            TradeSystem.log("    ...recovered " + interrupted + " interrupted trade settlement(s)");
+
+            for (Settlement settlement : this.open.values()) {
+                for (Receiver receiver : settlement.receivers) {
+                    this.recoveries.computeIfAbsent(receiver.uniqueId, $ -> new ArrayList<>()).add(settlement);
+                }
+
+                if (settlement.settled) {
+                    TradeSystem.getInstance().getLogger().warning("The settlement of a trade with " + settlement.names + " was interrupted. " +
+                            "Undelivered items will be handed out on the next join.");
+                } else {
+                    TradeSystem.getInstance().getLogger().warning("The economy transfers of a trade with " + settlement.names + " were interrupted. " +
+                            "The offered items will be returned on the next join." +
+                            (settlement.transfers.isEmpty() ? "" : " Please check these transfers manually: " + String.join("; ", settlement.transfers)));
+                }
+            }
+
+            // nothing left to deliver
+            this.open.values().removeIf(s -> s.receivers.isEmpty());
+        }
+
+        if (!rewrite() && this.buffer == null) {
+            TradeSystem.getInstance().getLogger().severe("Could not create the settlement journal. Trades will be settled without journal.");
+        }
+    }
+
+    /**
+     * Maps the segment with the highest generation which was completely written. Incomplete segments of interrupted compactions and outdated
+     * segments will be deleted.
+     */
+    private void openLatestSegment(@NotNull File folder) throws IOException {
+        File[] files = folder.listFiles((dir, name) -> SEGMENT_NAME.matcher(name).matches());
+        if (files == null) return;
+
+        Arrays.sort(files, Comparator.comparingLong(SettlementJournal::getGeneration).reversed());
+
+        for (File file : files) {
+            long generation = getGeneration(file);
+
+            if (this.buffer == null) {
+                FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                if (channel.size() >= SEGMENT_HEADER_SIZE) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_SIZE, channel.size()));
+
+                    // the generation is written last when a segment is complete
+                    if (buffer.getLong(0) == generation) {
+                        this.channel = channel;
+                        this.buffer = buffer;
+                        this.generation = generation;
+                        continue;
+                    }
+                }
+
+                channel.close();
+            }
+
+            deleteSegment(file);
+        }
+    }
+
+    private static long getGeneration(@NotNull File file) {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    @NotNull
+    private static File getSegment(long generation) {
+        return new File(TradeSystem.getInstance().getDataFolder(), "settlements." + generation + ".journal");
+    }
+
+    /**
+     * Segments which are still mapped cannot be deleted on some platforms. They will be deleted by a later compaction or on the next startup.
+     */
+    private static void deleteSegment(@NotNull File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException ignored) {
+        }
+    }
+
+    public synchronized void close() {
+        release();
+        this.open.clear();
+        this.recoveries.clear();
+    }
+
+    private void release() {
+        if (this.buffer != null) this.buffer.force();
+
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        this.channel = null;
+        this.buffer = null;
+        this.generation = 0;
+        this.position = 0;
+    }
+
+    /**
+     * Records the intent to settle a trade. Must be called before the economy transfers are executed.
+     *
+     * @param receivers The local players with the items they will receive and the items they offered.
+     * @param transfers The descriptions of all economy transfers of the trade.
+     * @return The id of the settlement.
+     */
+    public long begin(@NotNull List<Receiver> receivers, @NotNull List<String> transfers) {
+        long start = System.nanoTime();
+
+        // build the payload before appending it
+        for (Receiver receiver : receivers) {
+            receiver.encode();
+        }
+
+        synchronized (this) {
+            long id = nextId++;
+            if (this.buffer == null) return id;
+
+            Settlement settlement = new Settlement(id, receivers, transfers);
+            writeBegin(settlement);
+            this.open.put(id, settlement);
+            measure(start);
+
+            return id;
+        }
+    }
+
+    /**
+     * Records that all economy transfers of a settlement were successful. From now on, the players receive the goods of their partner.
+     *
+     * @param id The id of the settlement.
+     */
+    public synchronized void settled(long id) {
+        Settlement settlement = this.open.get(id);
+        if (settlement == null) return;
+        settlement.settled = true;
+
+        long start = System.nanoTime();
+        if (ensureCapacity(HEADER_SIZE)) append(SETTLED, id, 0);
+        measure(start);
+    }
+
+    /**
+     * Closes a settlement whose economy transfers failed and have been reverted. The offered items must have been returned to their owners.
+     *
+     * @param id The id of the settlement.
+     */
+    public synchronized void rollback(long id) {
+        if (this.open.remove(id) == null) return;
+
+        long start = System.nanoTime();
+        if (ensureCapacity(HEADER_SIZE)) append(ROLLBACK, id, 0);
+        measure(start);
+    }
+
+    /**
+     * Records the delivery of all items of a receiver.
+     *
+     * @param id       The id of the settlement.
+     * @param uniqueId The id of the receiver.
+     */
+    public synchronized void delivered(long id, @NotNull UUID uniqueId) {
+        Settlement settlement = this.open.get(id);
+        if (settlement == null || !settlement.remove(uniqueId)) return;
+
+        long start = System.nanoTime();
+        if (ensureCapacity(HEADER_SIZE + 16)) {
+            int offset = position + HEADER_SIZE;
+            buffer.putLong(offset, uniqueId.getMostSignificantBits());
+            buffer.putLong(offset + 8, uniqueId.getLeastSignificantBits());
+            append(DELIVERED, id, 16);
+        }
+        measure(start);
+    }
+
+    /**
+     * Hands out the items of a receiver on the next join instead, e.g. if the receiver left while the trade was settled.
+     *
+     * @param id       The id of the settlement.
+     * @param uniqueId The id of the receiver.
+     */
+    public synchronized void defer(long id, @NotNull UUID uniqueId) {
+        Settlement settlement = this.open.get(id);
+        if (settlement == null || settlement.get(uniqueId) == null) return;
+
+        this.recoveries.computeIfAbsent(uniqueId, $ -> new ArrayList<>()).add(settlement);
+    }
+
+    /**
+     * Records the completion of a settlement. Settlements with deferred receivers stay open until all items have been handed out.
+     *
+     * @param id The id of the settlement.
+     */
+    public synchronized void commit(long id) {
+        Settlement settlement = this.open.get(id);
+        if (settlement == null || !settlement.receivers.isEmpty()) return;
+        this.open.remove(id);
+
+        long start = System.nanoTime();
+        if (ensureCapacity(HEADER_SIZE)) append(COMMIT, id, 0);
+        measure(start);
+    }
+
+    /**
+     * Hands out all items of interrupted settlements to the given player.
+     *
+     * @param player The player who joined.
+     */
+    public synchronized void recover(@NotNull Player player) {
+        List<Settlement> settlements = this.recoveries.remove(player.getUniqueId());
+        if (settlements == null) return;
+
+        for (Settlement settlement : settlements) {
+            Receiver receiver = settlement.get(player.getUniqueId());
+            if (receiver == null) continue;
+
+            for (ItemStack item : Receiver.decode(settlement.settled ? receiver.received : receiver.returned)) {
+                for (ItemStack rest : player.getInventory().addItem(item).values()) {
+                    player.getWorld().dropItem(player.getLocation().add(0, 0.1, 0), rest);
+                }
+            }
+
+            if (settlement.settled) TradeSystem.log("Handed out the items of an interrupted trade settlement to " + player.getName());
+            else TradeSystem.log("Returned the offered items of an interrupted trade settlement to " + player.getName());
+
+            delivered(settlement.id, player.getUniqueId());
+            if (settlement.receivers.isEmpty()) commit(settlement.id);
+        }
+    }
+
+    /**
+     * @return The amount of journal writes since startup.
+     */
+    public long getWrites() {
+        return writes;
+    }
+
+    /**
+     * @return The average duration of a journal write in nanoseconds. Includes the binary encoding of the items for the first record of a settlement.
+     */
+    public long getAverageWriteNanos() {
+        return writes == 0 ? 0 : writeNanos / writes;
+    }
+
+    public int getPendingRecoveries() {
+        return recoveries.size();
+    }
+
+    private void measure(long start) {
+        writeNanos += System.nanoTime() - start;
+        writes++;
+    }
+
+    private void writeBegin(@NotNull Settlement settlement) {
+        int length = 1 + 2;
+        for (Receiver receiver : settlement.receivers) {
+            length += 16 + 2 + receiver.name.length + 4 + receiver.received.length + 4 + receiver.returned.length;
+        }
+        for (byte[] transfer : settlement.encodedTransfers) {
+            length += 2 + transfer.length;
+        }
+
+        if (!ensureCapacity(HEADER_SIZE + length)) return;
+
+        int offset = position + HEADER_SIZE;
+        buffer.put(offset++, (byte) settlement.receivers.size());
+
+        for (Receiver receiver : settlement.receivers) {
+            buffer.putLong(offset, receiver.uniqueId.getMostSignificantBits());
+            buffer.putLong(offset + 8, receiver.uniqueId.getLeastSignificantBits());
+            offset += 16;
+
+            buffer.putShort(offset, (short) receiver.name.length);
+            offset += 2;
+            offset = put(offset, receiver.name);
+
+            buffer.putInt(offset, receiver.received.length);
+            offset += 4;
+            offset = put(offset, receiver.received);
+
+            buffer.putInt(offset, receiver.returned.length);
+            offset += 4;
+            offset = put(offset, receiver.returned);
+        }
+
+        buffer.putShort(offset, (short) settlement.encodedTransfers.size());
+        offset += 2;
+        for (byte[] transfer : settlement.encodedTransfers) {
+            buffer.putShort(offset, (short) transfer.length);
+            offset += 2;
+            offset = put(offset, transfer);
+        }
+
+        append(BEGIN, settlement.id, length);
+        if (settlement.settled && ensureCapacity(HEADER_SIZE)) append(SETTLED, settlement.id, 0);
+    }
+
+    private int put(int offset, byte @NotNull [] bytes) {
+        for (byte b : bytes) buffer.put(offset++, b);
+        return offset;
+    }
+
+    private byte @NotNull [] get(int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) bytes[i] = buffer.get(offset + i);
+        return bytes;
+    }
+
+    /**
+     * Completes a record whose payload has already been written. The type will be written last to mark the record as complete.
+     */
+    private void append(byte type, long id, int length) {
+        buffer.putInt(position + 1, length);
+        buffer.putLong(position + 5, id);
+        buffer.put(position, type);
+        position += HEADER_SIZE + length;
+    }
+
+    /**
+     * Ensures that the given amount of bytes can be appended. A full segment will be compacted to the open settlements and grown if necessary.
+     *
+     * @return False if the journal is not available anymore.
+     */
+    private boolean ensureCapacity(int size) {
+        if (buffer == null) return false;
+        if (position + size + 1 <= buffer.capacity()) return true;
+
+        if (!rewriting && rewrite() && position + size + 1 <= buffer.capacity()) return true;
+
+        try {
+            int capacity = buffer.capacity();
+            while (position + size + 1 > capacity) capacity *= 2;
+
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            return true;
+        } catch (IOException e) {
+            TradeSystem.getInstance().getLogger().log(Level.SEVERE, "Could not grow the settlement journal. Trades will be settled without journal.", e);
+            release();
+            return false;
+        }
+    }
+
+    /**
+     * Writes all open settlements to a segment of the next generation. The current segment stays untouched until the new one is complete, so a crash
+     * while compacting cannot lose any open settlement. The new segment is marked as complete by writing its generation last. Since mapped files
+     * cannot be replaced on every platform, outdated segments will be deleted instead of being overwritten.
+     *
+     * @return True if the new segment is used.
+     */
+    private boolean rewrite() {
+        long nextGeneration = this.generation + 1;
+        File file = getSegment(nextGeneration);
+
+        FileChannel previousChannel = this.channel;
+        MappedByteBuffer previousBuffer = this.buffer;
+        int previousPosition = this.position;
+
+        FileChannel nextChannel = null;
+        try {
+            nextChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            this.channel = nextChannel;
+            this.buffer = nextChannel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_SIZE);
+            this.position = SEGMENT_HEADER_SIZE;
+
+            rewriting = true;
+            for (Settlement settlement : open.values()) {
+                writeBegin(settlement);
+            }
+            rewriting = false;
+
+            if (this.buffer == null) throw new IOException("The compacted segment could not be written.");
+            this.buffer.force();
+
+            this.buffer.putLong(0, nextGeneration);
+            this.buffer.force();
+        } catch (IOException e) {
+            rewriting = false;
+            TradeSystem.getInstance().getLogger().log(Level.WARNING, "Could not compact the settlement journal. The current segment will be used further.", e);
+
+            if (nextChannel != null) {
+                try {
+                    nextChannel.close();
+                } catch (IOException ignored) {
+                }
+            }
+            deleteSegment(file);
+
+            this.channel = previousChannel;
+            this.buffer = previousBuffer;
+            this.position = previousPosition;
+            return false;
+        }
+
+        if (previousChannel != null) {
+            try {
+                previousChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // including segments which could not be deleted before
+        if (this.generation > 0) this.outdated.add(getSegment(this.generation));
+        this.outdated.removeIf(outdated -> {
+            deleteSegment(outdated);
+            return !outdated.exists();
+        });
+
+        this.generation = nextGeneration;
+        return true;
+    }
+
+    private void replay() {
+        int offset = SEGMENT_HEADER_SIZE;
+
+        while (offset + HEADER_SIZE <= buffer.capacity()) {
+            byte type = buffer.get(offset);
+            if (type < BEGIN || type > ROLLBACK) break;
+
+            int length = buffer.getInt(offset + 1);
+            long id = buffer.getLong(offset + 5);
+            if (length < 0 || offset + HEADER_SIZE + length > buffer.capacity()) break;
+
+            int payload = offset + HEADER_SIZE;
+            switch (type) {
+                case BEGIN:
+                    try {
+                        this.open.put(id, readBegin(id, payload));
+                    } catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+                        // torn record
+                        this.position = offset;
+                        return;
+                    }
+                    break;
+                case DELIVERED:
+                    Settlement settlement = this.open.get(id);
+                    if (settlement != null) settlement.remove(new UUID(buffer.getLong(payload), buffer.getLong(payload + 8)));
+                    break;
+                case SETTLED:
+                    Settlement settled = this.open.get(id);
+                    if (settled != null) settled.settled = true;
+                    break;
+                case COMMIT:
+                case ROLLBACK:
+                    this.open.remove(id);
+                    break;
+            }
+
+            this.nextId = Math.max(this.nextId, id + 1);
+            offset = payload + length;
+        }
+
+        this.position = offset;
+    }
+
+    @NotNull
+    private Settlement readBegin(long id, int offset) {
+        int count = buffer.get(offset++) & 0xFF;
+        List<Receiver> receivers = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            UUID uniqueId = new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+            offset += 16;
+
+            byte[] name = get(offset + 2, buffer.getShort(offset) & 0xFFFF);
+            offset += 2 + name.length;
+
+            byte[] received = get(offset + 4, buffer.getInt(offset));
+            offset += 4 + received.length;
+
+            byte[] returned = get(offset + 4, buffer.getInt(offset));
+            offset += 4 + returned.length;
+
+            receivers.add(new Receiver(uniqueId, name, received, returned));
+        }
+
+        int transferCount = buffer.getShort(offset) & 0xFFFF;
+        offset += 2;
+        List<String> transfers = new ArrayList<>(transferCount);
+
+        for (int i = 0; i < transferCount; i++) {
+            byte[] transfer = get(offset + 2, buffer.getShort(offset) & 0xFFFF);
+            offset += 2 + transfer.length;
+            transfers.add(new String(transfer, StandardCharsets.UTF_8));
+        }
+
+        return new Settlement(id, receivers, transfers);
+    }
+
+    private static class Settlement {
+        private final long id;
+        private final List<Receiver> receivers;
+        private final List<String> transfers;
+        private final List<byte[]> encodedTransfers;
+        private final String names;
+        private boolean settled = false;
+
+        private Settlement(long id, @NotNull List<Receiver> receivers, @NotNull List<String> transfers) {
+            this.id = id;
+            this.receivers = new ArrayList<>(receivers);
+            this.transfers = new ArrayList<>(transfers);
+            this.encodedTransfers = new ArrayList<>(transfers.size());
+            for (String transfer : transfers) {
+                this.encodedTransfers.add(transfer.getBytes(StandardCharsets.UTF_8));
+            }
+
+            StringBuilder builder = new StringBuilder();
+            for (Receiver receiver : receivers) {
+                if (builder.length() > 0) builder.append(", ");
+                builder.append(new String(receiver.name, StandardCharsets.UTF_8));
+            }
+            this.names = builder.toString();
+        }
+
+        @Nullable
+        private Receiver get(@NotNull UUID uniqueId) {
+            for (Receiver receiver : receivers) {
+                if (receiver.uniqueId.equals(uniqueId)) return receiver;
+            }
+            return null;
+        }
+
+        private boolean remove(@NotNull UUID uniqueId) {
+            return receivers.removeIf(r -> r.uniqueId.equals(uniqueId));
+        }
+    }
+
+    /**
+     * A local player who receives items during a settlement. The items will be encoded when the settlement begins.
+     */
+    public static class Receiver {
+        private final UUID uniqueId;
+        private final byte[] name;
+        private List<ItemStack> receivedItems;
+        private List<ItemStack> returnedItems;
+        private byte[] received;
+        private byte[] returned;
+
+        /**
+         * @param player   The local player.
+         * @param received The items the player will receive from the trade partner.
+         * @param returned The items the player offered. They will be returned if the economy transfers could not be settled.
+         */
+        public Receiver(@NotNull Player player, @NotNull List<ItemStack> received, @NotNull List<ItemStack> returned) {
+            this.uniqueId = player.getUniqueId();
+            this.name = player.getName().getBytes(StandardCharsets.UTF_8);
+            this.receivedItems = received;
+            this.returnedItems = returned;
+        }
+
+        private Receiver(@NotNull UUID uniqueId, byte @NotNull [] name, byte @NotNull [] received, byte @NotNull [] returned) {
+            this.uniqueId = uniqueId;
+            this.name = name;
+            this.received = received;
+            this.returned = returned;
+        }
+
+        private void encode() {
+            if (received != null) return;
+
+            this.received = encode(receivedItems);
+            this.returned = encode(returnedItems);
+            this.receivedItems = null;
+            this.returnedItems = null;
+        }
+
+        @NotNull
+        private static List<ItemStack> decode(byte @NotNull [] items) {
+            List<ItemStack> list = new ArrayList<>();
+            if (items.length == 0) return list;
+
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(items));
+                int count = in.readUnsignedShort();
+
+                for (int i = 0; i < count; i++) {
+                    SerializedItem item = new SerializedItem();
+                    item.read(in);
+
+                    ItemStack itemStack = ItemStackUtils.deserializeItemStack(item.getObject());
+                    if (itemStack != null) list.add(itemStack);
+                }
+            } catch (Exception e) {
+                TradeSystem.getInstance().getLogger().log(Level.SEVERE, "Could not decode the items of an interrupted trade settlement.", e);
+            }
+
+            return list;
+        }
+
+        private static byte @NotNull [] encode(@NotNull List<ItemStack> items) {
+            List<Map<String, Object>> list = new ArrayList<>(items.size());
+            for (ItemStack item : items) {
+                if (item == null || item.getType() == Material.AIR) continue;
+
+                Map<String, Object> data = ItemStackUtils.serializeItemStack(item);
+                if (data != null) list.add(data);
+            }
+
+            if (list.isEmpty()) return new byte[0];
+
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeShort(list.size());
+                for (Map<String, Object> data : list) {
+                    SerializedItem.forStorage(data).write(out);
+                }
+
+                out.flush();
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                TradeSystem.getInstance().getLogger().log(Level.SEVERE, "Could not encode the items of a trade settlement.", e);
+                return new byte[0];
+            }
+        }
+    }
+}
@@ -81,8 +81,13 @@ public class TradeListener implements Listener, ChatButtonListener {
         if (t != null) {
             if (!TradeSystem.man().isDropItems()) {
                 //does it fit?
-                if (t.doesNotFit(p, e.getItem().getItemStack())) e.setCancelled(true);
+                if (t.doesNotFit(p, e.getItem().getItemStack())) {
+                    e.setCancelled(true);
+                    return;
+                }
             }
+
+            t.handlePickUp(e);
         }
     }
 
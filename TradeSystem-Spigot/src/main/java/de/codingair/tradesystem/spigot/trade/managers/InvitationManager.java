@@ -8,6 +8,7 @@ import de.codingair.tradesystem.spigot.TradeSystem;
 import de.codingair.tradesystem.spigot.events.TradeRequestExpireEvent;
 import de.codingair.tradesystem.spigot.events.TradeRequestPreResponseEvent;
 import de.codingair.tradesystem.spigot.events.TradeRequestResponseEvent;
+import de.codingair.tradesystem.spigot.trade.TimingWheel;
 import de.codingair.tradesystem.spigot.utils.Lang;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -21,28 +22,20 @@ public class InvitationManager {
      * receiver to invitations from others
      */
     private final Map<String, Map<String, Invitation>> invitations = new HashMap<>();
-    private int expirationHandler = -1;
 
-    public void startExpirationHandler() {
-        long expiration = TradeSystem.man().getRequestExpirationTime() * 1000L;
+    private void scheduleExpiration(@NotNull String nameReceiver, @NotNull Invitation invitation) {
+        long expiration = TradeSystem.man().getRequestExpirationTime() * 20L;
 
-        expirationHandler = Bukkit.getScheduler().scheduleSyncRepeatingTask(TradeSystem.getInstance(), () -> invitations.entrySet().removeIf(e -> {
-            e.getValue().values().removeIf(inv -> {
-                boolean valid = inv.valid(expiration);
-                if (valid) return false;
+        invitation.expiration = TradeSystem.man().getTimingWheel().schedule(expiration, () -> {
+            invitation.expiration = null;
 
-                notifyExpiration(e.getKey(), inv);
-                return true;
-            });
-
-            return e.getValue().isEmpty();
-        }), 20, 10);
-    }
+            Map<String, Invitation> map = getInvitations(nameReceiver);
+            if (map == null || map.get(invitation.getName().toLowerCase()) != invitation) return;
 
-    public void stopExpirationHandler() {
-        if (expirationHandler == -1) return;
-        Bukkit.getScheduler().cancelTask(expirationHandler);
-        expirationHandler = -1;
+            map.remove(invitation.getName().toLowerCase());
+            invalidateIfEmpty(nameReceiver, map);
+            notifyExpiration(nameReceiver, invitation);
+        });
     }
 
     private void notifyExpiration(String nameReceiver, Invitation inv) {
@@ -67,7 +60,7 @@ public class InvitationManager {
     public static boolean processInvitation(@NotNull Player inviter, @Nullable Player receiver, @NotNull String receiverName) {
         // check if this player has already an invitation
         Map<String, Invitation> map = instance().getInvitations(inviter.getName());
-        boolean invited = map != null && map.remove(receiverName.toLowerCase()) != null;
+        boolean invited = map != null && Invitation.cancel(map.remove(receiverName.toLowerCase()));
 
         if (invited) {
             if (map.isEmpty()) instance().clear(inviter.getName());
@@ -98,9 +91,12 @@ public class InvitationManager {
         boolean proxy = inviter == null || receiver == null;
         Invitation invitation = new Invitation(nameInviter, proxy);
 
-        instance().invitations
+        Invitation previous = instance().invitations
                 .computeIfAbsent(nameReceiver.toLowerCase(), $ -> new HashMap<>())
                 .put(nameInviter.toLowerCase(), invitation);
+
+        Invitation.cancel(previous);
+        instance().scheduleExpiration(nameReceiver.toLowerCase(), invitation);
     }
 
     //proxy usage
@@ -120,7 +116,7 @@ public class InvitationManager {
                         //call event
                         Bukkit.getScheduler().runTask(TradeSystem.getInstance(), () -> Bukkit.getPluginManager().callEvent(new TradeRequestResponseEvent(name, null, player.getName(), player, true)));
 
-                        TradeSystem.getInstance().getTradeManager().startTrade(player, null, name, false);
+                        TradeSystem.getInstance().getTradeManager().startTrade(player, null, name, false, suc.getTradeId());
                     } else RuleManager.message(player, name, suc.getResult(), suc.getServer());
                 }
             });
@@ -139,13 +135,14 @@ public class InvitationManager {
     }
 
     public void clear(String name) {
-        this.invitations.remove(name.toLowerCase());
+        Map<String, Invitation> map = this.invitations.remove(name.toLowerCase());
+        if (map != null) map.values().forEach(Invitation::cancel);
     }
 
     public void invalidate(@NotNull Player player, @NotNull Invitation invitation) {
         Map<String, Invitation> l = getInvitations(player.getName());
         if (l != null) {
-            l.remove(invitation.getName().toLowerCase());
+            Invitation.cancel(l.remove(invitation.getName().toLowerCase()));
             invalidateIfEmpty(player.getName(), l);
         }
     }
@@ -153,12 +150,13 @@ public class InvitationManager {
     public void invalidate(@NotNull Player inviter, @NotNull String other) {
         Map<String, Invitation> l = getInvitations(other);
         if (l != null) {
-            l.remove(inviter.getName().toLowerCase());
+            Invitation.cancel(l.remove(inviter.getName().toLowerCase()));
             invalidateIfEmpty(other, l);
         }
     }
 
     public void clear() {
+        this.invitations.values().forEach(map -> map.values().forEach(Invitation::cancel));
         this.invitations.clear();
     }
 
@@ -176,7 +174,7 @@ public class InvitationManager {
 
         this.invitations.entrySet().removeIf(e -> {
             Map<String, Invitation> invitations = e.getValue();
-            invitations.remove(name.toLowerCase());
+            Invitation.cancel(invitations.remove(name.toLowerCase()));
             return invitations.isEmpty();
         });
     }
@@ -268,7 +266,7 @@ public class InvitationManager {
                             invalidate(sender, invitation);
 
                             sender.sendMessage(Lang.getPrefix() + Lang.get("Request_Accepted", sender));
-                            TradeSystem.getInstance().getTradeManager().startTrade(sender, null, name, false);
+                            TradeSystem.getInstance().getTradeManager().startTrade(sender, null, name, false, suc.getTradeId());
                         } else if (suc.getResult() == InviteResponsePacket.Result.NOT_ONLINE) {
                             sender.sendMessage(Lang.getPrefix() + Lang.get("Player_Of_Request_Not_Online", sender));
                         } else if (suc.getResult() == InviteResponsePacket.Result.OTHER_GROUP) {
@@ -303,6 +301,7 @@ public class InvitationManager {
         private final String name;
         private final boolean proxyInvite;
         private final long birth;
+        private TimingWheel.Timeout expiration;
 
         public Invitation(String name, boolean proxyInvite) {
             this(name, proxyInvite, System.currentTimeMillis());
@@ -358,5 +357,20 @@ public class InvitationManager {
         public boolean valid(long expirationTime) {
             return System.currentTimeMillis() - birth < expirationTime;
         }
+
+        /**
+         * Stops the expiration of the given invitation.
+         *
+         * @param invitation The invitation which has been removed.
+         * @return True if an invitation was given.
+         */
+        private static boolean cancel(@Nullable Invitation invitation) {
+            if (invitation == null) return false;
+            if (invitation.expiration != null) {
+                invitation.expiration.cancel();
+                invitation.expiration = null;
+            }
+            return true;
+        }
     }
 }
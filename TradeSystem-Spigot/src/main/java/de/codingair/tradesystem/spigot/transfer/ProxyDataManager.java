@@ -11,9 +11,9 @@ import org.bukkit.command.CommandSender;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
@@ -24,7 +24,7 @@ public class ProxyDataManager {
     /**
      * lower-case to case-sensitive
      */
-    private final HashMap<String, String> players = new HashMap<>();
+    private final ConcurrentHashMap<String, String> players = new ConcurrentHashMap<>();
 
     public void onDisable() {
         this.players.clear();
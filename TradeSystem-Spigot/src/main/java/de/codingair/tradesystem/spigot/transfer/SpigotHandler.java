@@ -2,6 +2,7 @@ package de.codingair.tradesystem.spigot.transfer;
 
 import de.codingair.packetmanagement.variants.bytestream.OneWayStreamDataHandler;
 import de.codingair.tradesystem.proxy.packets.*;
+import de.codingair.tradesystem.proxy.packets.utils.PacketBundle;
 import de.codingair.tradesystem.spigot.TradeSystem;
 import de.codingair.tradesystem.spigot.transfer.handlers.*;
 import org.bukkit.Bukkit;
@@ -9,9 +10,19 @@ import org.bukkit.entity.Player;
 import org.bukkit.plugin.messaging.PluginMessageListener;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Optional;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 
 public class SpigotHandler extends OneWayStreamDataHandler<Player> implements PluginMessageListener {
+    private final AtomicLong sentFrames = new AtomicLong();
+    private final AtomicLong sentMessages = new AtomicLong();
+
+    // outbound frames of the current tick; grouped by the player who carries them
+    private final Map<Player, List<byte[]>> queue = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
     public SpigotHandler(TradeSystem plugin) {
         super("tradesystem", plugin);
     }
@@ -38,13 +49,19 @@ public class SpigotHandler extends OneWayStreamDataHandler<Player> implements Pl
     public void onEnable() {
         Bukkit.getMessenger().registerOutgoingPluginChannel((TradeSystem) proxy, channelProxy);
         Bukkit.getMessenger().registerIncomingPluginChannel((TradeSystem) proxy, channelBackend, this);
+        Bukkit.getMessenger().registerOutgoingPluginChannel((TradeSystem) proxy, PacketBundle.getChannel(channelProxy));
+        Bukkit.getMessenger().registerIncomingPluginChannel((TradeSystem) proxy, PacketBundle.getChannel(channelBackend), this);
 
         if (!Bukkit.getOnlinePlayers().isEmpty()) send(new SynchronizePlayersPacket(), null);
     }
 
     public void onDisable() {
+        flush();
+
         Bukkit.getMessenger().unregisterOutgoingPluginChannel((TradeSystem) proxy, channelProxy);
         Bukkit.getMessenger().unregisterIncomingPluginChannel((TradeSystem) proxy, channelBackend, this);
+        Bukkit.getMessenger().unregisterOutgoingPluginChannel((TradeSystem) proxy, PacketBundle.getChannel(channelProxy));
+        Bukkit.getMessenger().unregisterIncomingPluginChannel((TradeSystem) proxy, PacketBundle.getChannel(channelBackend), this);
     }
 
     @Override
@@ -52,12 +69,98 @@ public class SpigotHandler extends OneWayStreamDataHandler<Player> implements Pl
         if (p == null) p = getAny();
         if (p == null) return; //nobody online
 
-        p.sendPluginMessage(getProxy(), channelProxy, data);
+        if (!TradeSystem.man().isBatchProxyPackets()) {
+            sendMessage(p, channelProxy, data);
+            sentFrames.incrementAndGet();
+            return;
+        }
+
+        synchronized (queue) {
+            queue.computeIfAbsent(p, k -> new ArrayList<>()).add(data);
+
+            if (!flushScheduled) {
+                flushScheduled = true;
+                Bukkit.getScheduler().runTask(TradeSystem.getInstance(), this::flush);
+            }
+        }
+    }
+
+    /**
+     * Sends all queued frames. Frames of the same player will be merged into bundles which do not exceed the configured maximum packet size. A single
+     * frame will be sent without a bundle.
+     */
+    public void flush() {
+        Map<Player, List<byte[]>> frames;
+        synchronized (queue) {
+            flushScheduled = false;
+            if (queue.isEmpty()) return;
+
+            frames = new LinkedHashMap<>(queue);
+            queue.clear();
+        }
+
+        int maxSize = TradeSystem.man().getMaxPacketSize();
+        for (Map.Entry<Player, List<byte[]>> e : frames.entrySet()) {
+            Player p = e.getKey().isOnline() ? e.getKey() : getAny();
+            if (p == null) return; //nobody online
+
+            PacketBundle bundle = new PacketBundle();
+            for (byte[] frame : e.getValue()) {
+                if (!bundle.add(frame, maxSize)) {
+                    sendBundle(p, bundle);
+                    bundle = new PacketBundle();
+
+                    // too big for a bundle
+                    if (!bundle.add(frame, maxSize)) {
+                        sendMessage(p, channelProxy, frame);
+                        continue;
+                    }
+                }
+            }
+
+            sendBundle(p, bundle);
+            sentFrames.addAndGet(e.getValue().size());
+        }
+    }
+
+    private void sendBundle(@NotNull Player p, @NotNull PacketBundle bundle) {
+        if (bundle.isEmpty()) return;
+
+        if (bundle.getFrames().size() == 1) sendMessage(p, channelProxy, bundle.getFrames().get(0));
+        else sendMessage(p, PacketBundle.getChannel(channelProxy), bundle.toByteArray());
+    }
+
+    private void sendMessage(@NotNull Player p, @NotNull String channel, byte[] data) {
+        p.sendPluginMessage(getProxy(), channel, data);
+        sentMessages.incrementAndGet();
     }
 
     @Override
     public void onPluginMessageReceived(@NotNull String tag, @NotNull Player player, byte[] bytes) {
         if (tag.equals(getChannelBackend())) receive(bytes, player);
+        else if (tag.equals(PacketBundle.getChannel(getChannelBackend()))) {
+            try {
+                for (byte[] frame : PacketBundle.read(bytes)) {
+                    receive(frame, player);
+                }
+            } catch (IOException e) {
+                TradeSystem.getInstance().getLogger().log(Level.WARNING, "Could not read a packet bundle of the proxy.", e);
+            }
+        }
+    }
+
+    /**
+     * @return The amount of packet frames which were sent to the proxy.
+     */
+    public long getSentFrames() {
+        return sentFrames.get();
+    }
+
+    /**
+     * @return The amount of plugin messages which were used to send all frames.
+     */
+    public long getSentMessages() {
+        return sentMessages.get();
     }
 
     private Player getAny() {
@@ -12,6 +12,7 @@ import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 public class InviteResponsePacketHandler implements ResponsiblePacketHandler<InviteResponsePacket, InviteResponsePacket.ResultPacket> {
@@ -35,8 +36,10 @@ public class InviteResponsePacketHandler implements ResponsiblePacketHandler<Inv
         TradeSystem.invitations().invalidate(player, packet.getResponding());
         if (packet.isAccept()) {
             //start
-            TradeSystem.man().startTrade(player, null, packet.getResponding(), true);
-            return CompletableFuture.completedFuture(new InviteResponsePacket.ResultPacket(InviteResponsePacket.Result.SUCCESS));
+            // the partner server uses the same trade id
+            UUID tradeId = UUID.randomUUID();
+            TradeSystem.man().startTrade(player, null, packet.getResponding(), true, tradeId);
+            return CompletableFuture.completedFuture(new InviteResponsePacket.ResultPacket(InviteResponsePacket.Result.SUCCESS, tradeId));
         } else {
             //ignored answer
             player.sendMessage(Lang.getPrefix() + Lang.get("Request_Was_Denied", player, new Lang.P("player", packet.getResponding())));
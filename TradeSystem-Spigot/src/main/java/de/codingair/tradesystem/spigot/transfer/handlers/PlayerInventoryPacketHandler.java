@@ -4,6 +4,7 @@ import de.codingair.packetmanagement.handlers.PacketHandler;
 import de.codingair.packetmanagement.utils.Direction;
 import de.codingair.packetmanagement.utils.Proxy;
 import de.codingair.tradesystem.proxy.packets.PlayerInventoryPacket;
+import de.codingair.tradesystem.proxy.packets.utils.SerializedItem;
 import de.codingair.tradesystem.spigot.TradeSystem;
 import de.codingair.tradesystem.spigot.trade.ProxyTrade;
 import de.codingair.tradesystem.spigot.transfer.utils.ItemStackUtils;
@@ -11,7 +12,8 @@ import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class PlayerInventoryPacketHandler implements PacketHandler<PlayerInventoryPacket> {
     @Override
@@ -19,15 +21,41 @@ public class PlayerInventoryPacketHandler implements PacketHandler<PlayerInvento
         ProxyTrade t = TradeSystem.proxy().getTrade(packet.getRecipient(), packet.getSender());
         if (t == null) return;
 
+        switch (packet.getType()) {
+            case ACKNOWLEDGEMENT:
+                // sent by older versions only; deltas do not depend on acknowledgements
+                break;
+
+            case RESYNC:
+                t.receiveResyncRequest();
+                break;
+
+            default:
+                Map<Integer, ItemStack> items = new HashMap<>();
+                for (Map.Entry<Integer, SerializedItem> e : packet.getSerializedItems().entrySet()) {
+                    SerializedItem item = e.getValue();
+
+                    if (item != null) {
+                        item = t.getInventoryAssembler().offer(e.getKey(), item);
+                        if (item == null) continue;  // waiting for more fragments
+                    }
+
+                    items.put(e.getKey(), ItemStackUtils.deserializeItemStack(getObject(packet, e.getKey(), item)));
+                }
+
+                t.receiveInventory(packet.getType(), packet.getVersion(), packet.getBase(), items, packet.isLast());
+                break;
+        }
+    }
+
+    @Nullable
+    private static Map<String, Object> getObject(@NotNull PlayerInventoryPacket packet, int slot, @Nullable SerializedItem item) {
+        if (item == null) return null;
+
         try {
-            ItemStack item;
-            if (packet.getItem() == null) item = null;
-            else item = ItemStackUtils.deserializeItemStack(packet.getItem());
-
-            t.setDisplayItem(packet.getSlot(), item);
-            t.cancelItemOverflow(0);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            return item.getObject();
+        } catch (Exception ex) {
+            throw new RuntimeException(String.format("Error while reading item in slot %d. Please forward this error including the information about the traded item of %s to %s.", slot, packet.getSender(), packet.getRecipient()), ex);
         }
     }
 }
@@ -16,6 +16,7 @@ import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 public class TradeInvitePacketHandler implements ResponsiblePacketHandler<TradeInvitePacket, TradeInvitePacket.ResultPacket> {
@@ -53,9 +54,11 @@ public class TradeInvitePacketHandler implements ResponsiblePacketHandler<TradeI
 
                             TradeSystem.invitations().invalidate(player, packet.getInviter());
                             player.sendMessage(Lang.getPrefix() + Lang.get("Request_Was_Accepted", player, new Lang.P("player", packet.getInviter())));
-                            TradeSystem.man().startTrade(player, null, packet.getInviter(), true);
+                            // the partner server uses the same trade id
+                            UUID tradeId = UUID.randomUUID();
+                            TradeSystem.man().startTrade(player, null, packet.getInviter(), true, tradeId);
 
-                            future.complete(new TradeInvitePacket.ResultPacket(TradeInvitePacket.Result.START_TRADING));
+                            future.complete(new TradeInvitePacket.ResultPacket(TradeInvitePacket.Result.START_TRADING, tradeId));
                         } else {
                             InvitationManager.registerInvitation(null, packet.getInviter(), player, player.getName());
                             RequestManager.sendRequest(packet.getInviter(), player);
@@ -4,13 +4,13 @@ import de.codingair.packetmanagement.handlers.PacketHandler;
 import de.codingair.packetmanagement.utils.Direction;
 import de.codingair.packetmanagement.utils.Proxy;
 import de.codingair.tradesystem.proxy.packets.TradeItemUpdatePacket;
+import de.codingair.tradesystem.proxy.packets.utils.SerializedItem;
 import de.codingair.tradesystem.spigot.TradeSystem;
 import de.codingair.tradesystem.spigot.trade.ProxyTrade;
 import de.codingair.tradesystem.spigot.transfer.utils.ItemStackUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.IOException;
 import java.util.Map;
 
 public class TradeItemUpdatePacketHandler implements PacketHandler<TradeItemUpdatePacket> {
@@ -20,11 +20,19 @@ public class TradeItemUpdatePacketHandler implements PacketHandler<TradeItemUpda
         ProxyTrade t = TradeSystem.proxy().getTrade(packet.getRecipient(), packet.getSender());
         if (t == null) return;
 
+        SerializedItem item = packet.getSerializedItem();
+        if (item != null) {
+            item = t.getItemAssembler().offer(packet.getSlotId(), item);
+            if (item == null) return;  // waiting for more fragments
+        }
+
+        Map<String, Object> data;
         try {
-            Map<String, Object> data = packet.getItem();
-            t.receiveItemData(packet.getSlotId(), ItemStackUtils.deserializeItemStack(data));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            data = item == null ? null : item.getObject();
+        } catch (Exception e) {
+            throw new RuntimeException(String.format("Error while reading item in slotId %d (the id of the slot; only counts the trading slots). Please forward this error including the information about the traded item of %s to %s.", packet.getSlotId(), packet.getSender(), packet.getRecipient()), e);
         }
+
+        t.receiveItemData(packet.getSlotId(), ItemStackUtils.deserializeItemStack(data));
     }
 }
@@ -14,8 +14,14 @@ import java.io.*;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Lang {
+    // compiled messages per language key; cleared on reload
+    private static final Map<String, Map<String, Template>> TEMPLATES = new ConcurrentHashMap<>();
+    private static volatile String prefix = null;
+
     private static void deleteEmptyFiles(JavaPlugin plugin) {
         File folder = new File(plugin.getDataFolder(), "/Languages/");
 
@@ -66,8 +72,21 @@ public class Lang {
     }
 
     public static String getPrefix() {
-        String prefix = getConfig().getString("TradeSystem.Prefix", "&8» &r");
-        return prepare(null, prefix);
+        String prefix = Lang.prefix;
+        if (prefix == null) {
+            prefix = prepare(getConfig().getString("TradeSystem.Prefix", "&8» &r"));
+            Lang.prefix = prefix;
+        }
+
+        return prefix;
+    }
+
+    /**
+     * Drops all compiled messages and the prefix. Must be called when the language files or the config will be reloaded.
+     */
+    public static void clearCache() {
+        TEMPLATES.clear();
+        prefix = null;
     }
 
     public static @NotNull String getLanguageKey() {
@@ -94,21 +113,30 @@ public class Lang {
     }
 
     public static @NotNull String get(@NotNull String key, @Nullable Player p, @NotNull P... placeholders) {
-        String s = getLanguageFile(getLanguageKey()).getString(key, null);
-        if (s == null) throw new NullPointerException("Message \"" + key + "\" cannot be found in " + getLanguageKey());
+        String s = getTemplate(key).render(placeholders);
+        if (p != null && s.indexOf('%') >= 0) s = PlaceholderDependency.convert(s, p);
+        return s;
+    }
+
+    private static @NotNull Template getTemplate(@NotNull String key) {
+        String languageKey = getLanguageKey();
+        Map<String, Template> templates = TEMPLATES.computeIfAbsent(languageKey, k -> new ConcurrentHashMap<>());
+
+        Template template = templates.get(key);
+        if (template == null) {
+            String s = getLanguageFile(languageKey).getString(key, null);
+            if (s == null) throw new NullPointerException("Message \"" + key + "\" cannot be found in " + languageKey);
 
-        for (P placeholder : placeholders) {
-            s = placeholder.apply(s);
+            template = Template.compile(s);
+            templates.put(key, template);
         }
 
-        return prepare(p, s);
+        return template;
     }
 
-    private static String prepare(@Nullable Player player, @NotNull String s) {
+    private static String prepare(@NotNull String s) {
         s = s.replace("\\n", "\n");
-        s = ChatColor.translateAll('&', s);
-        if (player != null) s = PlaceholderDependency.convert(s, player);
-        return s;
+        return ChatColor.translateAll('&', s);
     }
 
     private static FileConfiguration getConfig() {
@@ -159,4 +187,92 @@ public class Lang {
             return s.replace("%" + placeholder + "%", replacement);
         }
     }
+
+    /**
+     * A message which has been split into literal and placeholder segments. Colors and line breaks of the literals are already translated.
+     */
+    private static class Template {
+        private final String[] literals;
+        private final String[] placeholders;
+        private final int length;
+
+        private Template(@NotNull String[] literals, @NotNull String[] placeholders) {
+            this.literals = literals;
+            this.placeholders = placeholders;
+
+            int length = 0;
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.length = length;
+        }
+
+        @NotNull
+        private static Template compile(@NotNull String s) {
+            s = prepare(s);
+
+            List<String> literals = new ArrayList<>();
+            List<String> placeholders = new ArrayList<>();
+
+            int start = 0;
+            int open = s.indexOf('%');
+            while (open >= 0) {
+                int close = s.indexOf('%', open + 1);
+                if (close < 0) break;
+
+                String name = s.substring(open + 1, close);
+                if (name.isEmpty() || containsWhitespace(name)) {
+                    // not a placeholder, e.g. "50% off"; the closing character might open the next placeholder
+                    open = close;
+                    continue;
+                }
+
+                literals.add(s.substring(start, open));
+                placeholders.add(name);
+                start = close + 1;
+                open = s.indexOf('%', start);
+            }
+
+            literals.add(s.substring(start));
+            return new Template(literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+        }
+
+        private static boolean containsWhitespace(@NotNull String s) {
+            for (int i = 0; i < s.length(); i++) {
+                if (Character.isWhitespace(s.charAt(i))) return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * @param placeholders The placeholders to apply. Unknown placeholders will be kept for PlaceholderAPI.
+         * @return The rendered message.
+         */
+        @NotNull
+        private String render(@NotNull P[] placeholders) {
+            if (this.placeholders.length == 0) return literals[0];
+
+            StringBuilder builder = new StringBuilder(length + this.placeholders.length * 16);
+            for (int i = 0; i < this.placeholders.length; i++) {
+                builder.append(literals[i]);
+
+                String name = this.placeholders[i];
+                String replacement = null;
+                for (P placeholder : placeholders) {
+                    if (placeholder.placeholder.equals(name)) {
+                        replacement = placeholder.replacement;
+                        break;
+                    }
+                }
+
+                // replacements were translated together with the message before
+                if (replacement == null) builder.append('%').append(name).append('%');
+                else if (replacement.indexOf('&') < 0 && replacement.indexOf('\\') < 0) builder.append(replacement);
+                else builder.append(prepare(replacement));
+            }
+
+            return builder.append(literals[literals.length - 1]).toString();
+        }
+    }
 }
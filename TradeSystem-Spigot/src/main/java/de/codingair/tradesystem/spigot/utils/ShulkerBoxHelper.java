@@ -1,11 +1,32 @@
 package de.codingair.tradesystem.spigot.utils;
 
+import org.bukkit.Material;
 import org.bukkit.block.ShulkerBox;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BlockStateMeta;
+import org.bukkit.inventory.meta.ItemMeta;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.EnumSet;
+import java.util.Set;
 
 public class ShulkerBoxHelper {
+    private static final Set<Material> SHULKER_BOXES = EnumSet.noneOf(Material.class);
+
+    static {
+        for (Material material : Material.values()) {
+            if (material.name().endsWith("SHULKER_BOX")) SHULKER_BOXES.add(material);
+        }
+    }
+
+    /**
+     * @param type The material of an item.
+     * @return true if the given material is a shulker box. Does not need to read the item meta.
+     */
+    public static boolean isShulkerBox(@Nullable Material type) {
+        return type != null && SHULKER_BOXES.contains(type);
+    }
 
     /**
      * Cannot be used in Minecraft v1.10 and below.
@@ -14,8 +35,18 @@ public class ShulkerBoxHelper {
      * @return The array of ItemStacks that is contained in this shulker box or an empty array if this is not a shulker box.
      */
     public static ItemStack[] getItems(@NotNull ItemStack item) {
-        if (item.getItemMeta() instanceof BlockStateMeta) {
-            BlockStateMeta im = (BlockStateMeta) item.getItemMeta();
+        return getItems(item.getItemMeta());
+    }
+
+    /**
+     * Cannot be used in Minecraft v1.10 and below.
+     *
+     * @param meta The ItemMeta that will be analyzed.
+     * @return The array of ItemStacks that is contained in this shulker box or an empty array if this is not a shulker box.
+     */
+    public static ItemStack[] getItems(@Nullable ItemMeta meta) {
+        if (meta instanceof BlockStateMeta) {
+            BlockStateMeta im = (BlockStateMeta) meta;
 
             if (im.getBlockState() instanceof ShulkerBox) {
                 ShulkerBox shulker = (ShulkerBox) im.getBlockState();
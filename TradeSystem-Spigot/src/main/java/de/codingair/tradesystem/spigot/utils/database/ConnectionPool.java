@@ -0,0 +1,418 @@
+package de.codingair.tradesystem.spigot.utils.database;
+
+import de.codingair.tradesystem.spigot.TradeSystem;
+import de.codingair.tradesystem.spigot.utils.Supplier;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * A small JDBC connection pool. Borrowed connections are handed out as proxies which return the physical connection to the pool when they are
+ * closed. Connections which were idle for a while will be validated before they are handed out again, idle connections above the minimum will be
+ * closed after the idle timeout and connections which are borrowed for too long will be reported as leak.
+ */
+public class ConnectionPool {
+    private static final long VALIDATION_INTERVAL = 500;
+    private static final long MAINTENANCE_INTERVAL = 5000;
+
+    private final Supplier<Connection, SQLException> factory;
+    private final Settings settings;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<Entry> idle = new ArrayDeque<>();
+    private final Set<Entry> borrowed = new HashSet<>();
+    private int total = 0;
+    private boolean closed = false;
+
+    private final ScheduledExecutorService maintenance;
+
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+
+    public ConnectionPool(@NotNull Supplier<Connection, SQLException> factory, @NotNull Settings settings) {
+        this.factory = factory;
+        this.settings = settings;
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "TradeSystem-ConnectionPool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maintenance.scheduleWithFixedDelay(this::maintain, 0, MAINTENANCE_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return A connection which must be closed after usage to return it to the pool.
+     * @throws SQLException If no connection could be created or no connection became available in time.
+     */
+    @NotNull
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(settings.connectionTimeout);
+
+        while (true) {
+            Entry entry = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) throw new SQLException("The connection pool was closed.");
+
+                    entry = idle.pollFirst();
+                    if (entry != null) break;
+
+                    if (total < settings.maxSize) {
+                        total++;
+                        create = true;
+                        break;
+                    }
+
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeouts.incrementAndGet();
+                        throw new SQLException("Could not get a connection within " + settings.connectionTimeout + "ms. All " + total + " connections are in use.");
+                    }
+
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a connection.", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) entry = create();
+            else if (!validate(entry)) {
+                discard(entry);
+                continue;
+            }
+
+            entry.borrowed = System.currentTimeMillis();
+            entry.trace = settings.leakDetectionThreshold > 0 ? new Exception("Connection was borrowed here") : null;
+            entry.reported = false;
+
+            lock.lock();
+            try {
+                borrowed.add(entry);
+            } finally {
+                lock.unlock();
+            }
+
+            borrows.incrementAndGet();
+            waitNanos.addAndGet(System.nanoTime() - start);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{Connection.class}, new Handle(entry));
+        }
+    }
+
+    /**
+     * Closes all idle connections. Borrowed connections will be closed when they are returned.
+     */
+    public void close() {
+        maintenance.shutdownNow();
+
+        List<Entry> connections;
+        lock.lock();
+        try {
+            closed = true;
+            connections = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        for (Entry entry : connections) discard(entry);
+    }
+
+    @NotNull
+    private Entry create() throws SQLException {
+        try {
+            Connection connection = factory.get();
+            if (connection == null) throw new SQLException("The database is not configured.");
+            return new Entry(connection);
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                total--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+
+            throw e;
+        }
+    }
+
+    private boolean validate(@NotNull Entry entry) {
+        if (System.currentTimeMillis() - entry.returned < VALIDATION_INTERVAL) return true;
+
+        try {
+            return entry.connection.isValid(settings.validationTimeout);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(@NotNull Entry entry) {
+        boolean reusable;
+        try {
+            if (!entry.connection.getAutoCommit()) {
+                entry.connection.rollback();
+                entry.connection.setAutoCommit(true);
+            }
+
+            reusable = !entry.connection.isClosed();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        lock.lock();
+        try {
+            borrowed.remove(entry);
+
+            if (reusable && !closed) {
+                entry.returned = System.currentTimeMillis();
+                idle.offerFirst(entry);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        discard(entry);
+    }
+
+    private void discard(@NotNull Entry entry) {
+        try {
+            entry.connection.close();
+        } catch (SQLException ignored) {
+        }
+
+        lock.lock();
+        try {
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void maintain() {
+        long now = System.currentTimeMillis();
+        List<Entry> expired = new ArrayList<>();
+        List<Entry> leaked = new ArrayList<>();
+        int missing;
+
+        lock.lock();
+        try {
+            if (closed) return;
+
+            // the oldest idle connections are at the end
+            Iterator<Entry> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() - expired.size() > settings.minIdle) {
+                Entry entry = it.next();
+                if (now - entry.returned < settings.idleTimeout) break;
+
+                it.remove();
+                expired.add(entry);
+            }
+
+            if (settings.leakDetectionThreshold > 0) {
+                for (Entry entry : borrowed) {
+                    if (!entry.reported && now - entry.borrowed > settings.leakDetectionThreshold) {
+                        entry.reported = true;
+                        leaked.add(entry);
+                    }
+                }
+            }
+
+            missing = Math.min(settings.minIdle - idle.size(), settings.maxSize - total);
+            if (missing > 0) total += missing;
+        } finally {
+            lock.unlock();
+        }
+
+        for (Entry entry : expired) discard(entry);
+
+        for (Entry entry : leaked) {
+            leaks.incrementAndGet();
+            TradeSystem.getInstance().getLogger().log(Level.WARNING, "A database connection was not returned for " + (now - entry.borrowed) + "ms. This might be a leak.", entry.trace);
+        }
+
+        for (int i = 0; i < missing; i++) {
+            try {
+                Entry entry = create();
+                entry.returned = System.currentTimeMillis();
+
+                boolean add;
+                lock.lock();
+                try {
+                    add = !closed;
+                    if (add) {
+                        idle.offerLast(entry);
+                        available.signal();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+
+                if (!add) discard(entry);
+            } catch (SQLException | RuntimeException e) {
+                // create() already released the reserved slot; release the others as well
+                lock.lock();
+                try {
+                    total -= missing - i - 1;
+                    available.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return The amount of borrowed connections.
+     */
+    public int getActive() {
+        lock.lock();
+        try {
+            return borrowed.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The amount of idle connections.
+     */
+    public int getIdle() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The average time in nanoseconds which was needed to get a connection.
+     */
+    public long getAverageWaitNanos() {
+        long borrows = this.borrows.get();
+        return borrows == 0 ? 0 : waitNanos.get() / borrows;
+    }
+
+    /**
+     * @return The amount of requests which could not get a connection in time.
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * @return The amount of connections which were reported as leak.
+     */
+    public long getLeaks() {
+        return leaks.get();
+    }
+
+    private static class Entry {
+        private final Connection connection;
+        private long borrowed;
+        private long returned = System.currentTimeMillis();
+        private Exception trace;
+        private boolean reported;
+
+        private Entry(@NotNull Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * Delegates all calls to the physical connection until the borrowed connection is closed.
+     */
+    private class Handle implements InvocationHandler {
+        private final Entry entry;
+        private boolean closed = false;
+
+        private Handle(@NotNull Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + entry.connection;
+            }
+
+            if (closed) throw new SQLException("The connection was already closed.");
+
+            try {
+                return method.invoke(entry.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    public static class Settings {
+        private final int minIdle;
+        private final int maxSize;
+        private final long connectionTimeout;
+        private final long idleTimeout;
+        private final int validationTimeout;
+        private final long leakDetectionThreshold;
+
+        /**
+         * @param minIdle                The amount of idle connections which will be kept open.
+         * @param maxSize                The maximum amount of connections.
+         * @param connectionTimeout      The maximum time in milliseconds to wait for a connection.
+         * @param idleTimeout            The time in milliseconds after which idle connections above the minimum will be closed.
+         * @param validationTimeout      The time in seconds to validate a connection.
+         * @param leakDetectionThreshold The time in milliseconds after which a borrowed connection will be reported. Use 0 to disable.
+         */
+        public Settings(int minIdle, int maxSize, long connectionTimeout, long idleTimeout, int validationTimeout, long leakDetectionThreshold) {
+            this.maxSize = Math.max(1, maxSize);
+            this.minIdle = Math.max(0, Math.min(minIdle, this.maxSize));
+            this.connectionTimeout = Math.max(0, connectionTimeout);
+            this.idleTimeout = Math.max(0, idleTimeout);
+            this.validationTimeout = Math.max(1, validationTimeout);
+            this.leakDetectionThreshold = Math.max(0, leakDetectionThreshold);
+        }
+    }
+}
@@ -1,8 +1,20 @@
 package de.codingair.tradesystem.spigot.utils.database.migrations;
 
+import java.util.Collections;
+import java.util.List;
+
 public interface Migration {
 
     String getStatement();
 
+    /**
+     * Some JDBC drivers only accept a single statement per call. Migrations which need several statements should return them separately.
+     *
+     * @return All statements of this migration in the order they will be executed.
+     */
+    default List<String> getStatements() {
+        return Collections.singletonList(getStatement());
+    }
+
     int getVersion();
 }
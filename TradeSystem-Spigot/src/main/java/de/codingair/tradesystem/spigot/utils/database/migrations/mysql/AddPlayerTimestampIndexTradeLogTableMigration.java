@@ -0,0 +1,20 @@
+package de.codingair.tradesystem.spigot.utils.database.migrations.mysql;
+
+import de.codingair.tradesystem.spigot.utils.database.migrations.Migration;
+
+public class AddPlayerTimestampIndexTradeLogTableMigration implements Migration {
+    @Override
+    public String getStatement() {
+        // the composite indexes also serve all lookups of the single player indexes
+        return "ALTER TABLE tradelog "
+                + "ADD INDEX player1_timestamp(player1, timestamp), "
+                + "ADD INDEX player2_timestamp(player2, timestamp), "
+                + "DROP INDEX player1, "
+                + "DROP INDEX player2;";
+    }
+
+    @Override
+    public int getVersion() {
+        return 4;
+    }
+}
@@ -0,0 +1,60 @@
+package de.codingair.tradesystem.spigot.utils.database.migrations.mysql;
+
+import de.codingair.tradesystem.spigot.utils.database.migrations.Migration;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class CreateTradesTableMigration implements Migration {
+    @Override
+    public String getStatement() {
+        return String.join(" ", getStatements());
+    }
+
+    @Override
+    public List<String> getStatements() {
+        return Arrays.asList(
+                "CREATE TABLE IF NOT EXISTS trades ("
+                        + "	id BIGINT PRIMARY KEY AUTO_INCREMENT,"
+                        + "	trade_id char(36) NOT NULL,"
+                        + "	player1 varchar(16) NOT NULL,"
+                        + "	player1_uuid char(36),"
+                        + "	player2 varchar(16) NOT NULL,"
+                        + "	player2_uuid char(36),"
+                        + "	started BIGINT NOT NULL,"
+                        + "	ended BIGINT NOT NULL,"
+                        + "	outcome varchar(16) NOT NULL,"
+                        + "	reason text,"
+                        + "	initiation_server BOOLEAN NOT NULL,"
+                        + "	INDEX(trade_id),"
+                        + "	INDEX(player1, ended),"
+                        + "	INDEX(player2, ended)" + ");",
+                "CREATE TABLE IF NOT EXISTS trade_items ("
+                        + "	id BIGINT PRIMARY KEY AUTO_INCREMENT,"
+                        + "	trade BIGINT NOT NULL,"
+                        + "	receiver TINYINT NOT NULL,"
+                        + "	material varchar(64) NOT NULL,"
+                        + "	amount INT NOT NULL,"
+                        + "	item MEDIUMBLOB,"
+                        + "	timestamp BIGINT NOT NULL,"
+                        + "	INDEX(trade),"
+                        + "	INDEX(material, timestamp),"
+                        + "	FOREIGN KEY (trade) REFERENCES trades(id) ON DELETE CASCADE" + ");",
+                "CREATE TABLE IF NOT EXISTS trade_economy ("
+                        + "	id BIGINT PRIMARY KEY AUTO_INCREMENT,"
+                        + "	trade BIGINT NOT NULL,"
+                        + "	receiver TINYINT NOT NULL,"
+                        + "	currency varchar(64) NOT NULL,"
+                        + "	amount DECIMAL(38, 10) NOT NULL,"
+                        + "	timestamp BIGINT NOT NULL,"
+                        + "	INDEX(trade),"
+                        + "	INDEX(currency, timestamp),"
+                        + "	FOREIGN KEY (trade) REFERENCES trades(id) ON DELETE CASCADE" + ");"
+        );
+    }
+
+    @Override
+    public int getVersion() {
+        return 3;
+    }
+}
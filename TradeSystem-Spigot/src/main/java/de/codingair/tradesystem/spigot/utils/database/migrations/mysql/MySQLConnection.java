@@ -3,7 +3,9 @@ package de.codingair.tradesystem.spigot.utils.database.migrations.mysql;
 import de.codingair.codingapi.files.ConfigFile;
 import de.codingair.tradesystem.spigot.TradeSystem;
 import de.codingair.tradesystem.spigot.utils.Supplier;
+import de.codingair.tradesystem.spigot.utils.database.ConnectionPool;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.jetbrains.annotations.Nullable;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -13,11 +15,12 @@ public class MySQLConnection {
 
     private static final ConfigFile file = TradeSystem.getInstance().getFileManager().getFile("Config");
     private static final FileConfiguration config = file.getConfig();
-    private static MySQLConnection instance;
+    private static volatile MySQLConnection instance;
 
     private final String url;
     private final String user;
     private final String password;
+    private final ConnectionPool pool;
 
     private MySQLConnection() {
         url = config.getString("TradeSystem.TradeLog.Database.MySQL.Connection_URL");
@@ -27,15 +30,45 @@ public class MySQLConnection {
         if (password != null && password.equalsIgnoreCase("null")) password = null;
 
         this.password = password;
+
+        this.pool = new ConnectionPool(this::buildConnection, new ConnectionPool.Settings(
+                config.getInt("TradeSystem.TradeLog.Database.MySQL.Pool.Min_Idle", 1),
+                config.getInt("TradeSystem.TradeLog.Database.MySQL.Pool.Max_Size", 4),
+                config.getLong("TradeSystem.TradeLog.Database.MySQL.Pool.Connection_Timeout", 5000),
+                config.getLong("TradeSystem.TradeLog.Database.MySQL.Pool.Idle_Timeout", 600000),
+                config.getInt("TradeSystem.TradeLog.Database.MySQL.Pool.Validation_Timeout", 3),
+                config.getLong("TradeSystem.TradeLog.Database.MySQL.Pool.Leak_Detection_Threshold", 60000)
+        ));
     }
 
-    private static MySQLConnection getInstance() {
+    private static synchronized MySQLConnection getInstance() {
         if (instance == null) instance = new MySQLConnection();
         return instance;
     }
 
+    /**
+     * @return A supplier of pooled connections. Connections must be closed after usage to return them to the pool.
+     */
     public static Supplier<Connection, SQLException> getConnection() {
-        return () -> getInstance().buildConnection();
+        return () -> getInstance().pool.getConnection();
+    }
+
+    /**
+     * @return The connection pool or null if no connection was requested yet.
+     */
+    @Nullable
+    public static ConnectionPool getPool() {
+        MySQLConnection instance = MySQLConnection.instance;
+        return instance == null ? null : instance.pool;
+    }
+
+    /**
+     * Closes all pooled connections.
+     */
+    public static synchronized void shutdown() {
+        if (instance == null) return;
+        instance.pool.close();
+        instance = null;
     }
 
     public static void checkDataSource() throws SQLException {
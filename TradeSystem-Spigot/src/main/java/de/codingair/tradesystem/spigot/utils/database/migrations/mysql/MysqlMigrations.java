@@ -14,7 +14,9 @@ public class MysqlMigrations implements SqlMigrations {
     // Define all migrations in this list.
     private static final List<Migration> migrations = Arrays.asList(
             new CreateTradeLogTableMigration(),
-            new AddIndexTradeLogTableMigration());
+            new AddIndexTradeLogTableMigration(),
+            new CreateTradesTableMigration(),
+            new AddPlayerTimestampIndexTradeLogTableMigration());
     private static MysqlMigrations instance;
     private final Supplier<Connection, SQLException> connection;
 
@@ -54,8 +56,9 @@ public class MysqlMigrations implements SqlMigrations {
 
             for (Migration migration : validMigrations) {
                 try (Statement stmt = con.createStatement()) {
-                    String sql = migration.getStatement();
-                    stmt.execute(sql);
+                    for (String sql : migration.getStatements()) {
+                        stmt.execute(sql);
+                    }
 
                     PreparedStatement migrationStatement = con.prepareStatement("INSERT INTO migrations (version) VALUES (?);");
                     migrationStatement.setInt(1, migration.getVersion());
@@ -0,0 +1,29 @@
+package de.codingair.tradesystem.spigot.utils.database.migrations.sqlite;
+
+import de.codingair.tradesystem.spigot.utils.database.migrations.Migration;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class AddPlayerTimestampIndexTradeLogTableMigration implements Migration {
+    @Override
+    public String getStatement() {
+        return String.join(" ", getStatements());
+    }
+
+    @Override
+    public List<String> getStatements() {
+        // the composite indexes also serve all lookups of the single player indexes
+        return Arrays.asList(
+                "CREATE INDEX IF NOT EXISTS player1_timestamp_tradelog ON tradelog(player1, timestamp);",
+                "CREATE INDEX IF NOT EXISTS player2_timestamp_tradelog ON tradelog(player2, timestamp);",
+                "DROP INDEX IF EXISTS player1_tradelog;",
+                "DROP INDEX IF EXISTS player2_tradelog;"
+        );
+    }
+
+    @Override
+    public int getVersion() {
+        return 4;
+    }
+}
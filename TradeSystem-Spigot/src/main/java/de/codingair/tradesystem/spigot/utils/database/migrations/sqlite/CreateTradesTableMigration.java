@@ -0,0 +1,58 @@
+package de.codingair.tradesystem.spigot.utils.database.migrations.sqlite;
+
+import de.codingair.tradesystem.spigot.utils.database.migrations.Migration;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class CreateTradesTableMigration implements Migration {
+    @Override
+    public String getStatement() {
+        return String.join(" ", getStatements());
+    }
+
+    @Override
+    public List<String> getStatements() {
+        return Arrays.asList(
+                "CREATE TABLE IF NOT EXISTS trades ("
+                        + "	id integer PRIMARY KEY,"
+                        + "	trade_id char(36) NOT NULL,"
+                        + "	player1 varchar(16) NOT NULL,"
+                        + "	player1_uuid char(36),"
+                        + "	player2 varchar(16) NOT NULL,"
+                        + "	player2_uuid char(36),"
+                        + "	started INTEGER NOT NULL,"
+                        + "	ended INTEGER NOT NULL,"
+                        + "	outcome varchar(16) NOT NULL,"
+                        + "	reason text,"
+                        + "	initiation_server INTEGER NOT NULL" + ");",
+                "CREATE INDEX IF NOT EXISTS trade_id_trades ON trades(trade_id);",
+                "CREATE INDEX IF NOT EXISTS player1_ended_trades ON trades(player1, ended);",
+                "CREATE INDEX IF NOT EXISTS player2_ended_trades ON trades(player2, ended);",
+                "CREATE TABLE IF NOT EXISTS trade_items ("
+                        + "	id integer PRIMARY KEY,"
+                        + "	trade INTEGER NOT NULL REFERENCES trades(id) ON DELETE CASCADE,"
+                        + "	receiver INTEGER NOT NULL,"
+                        + "	material varchar(64) NOT NULL,"
+                        + "	amount INTEGER NOT NULL,"
+                        + "	item BLOB,"
+                        + "	timestamp INTEGER NOT NULL" + ");",
+                "CREATE INDEX IF NOT EXISTS trade_trade_items ON trade_items(trade);",
+                "CREATE INDEX IF NOT EXISTS material_timestamp_trade_items ON trade_items(material, timestamp);",
+                "CREATE TABLE IF NOT EXISTS trade_economy ("
+                        + "	id integer PRIMARY KEY,"
+                        + "	trade INTEGER NOT NULL REFERENCES trades(id) ON DELETE CASCADE,"
+                        + "	receiver INTEGER NOT NULL,"
+                        + "	currency varchar(64) NOT NULL,"
+                        + "	amount NUMERIC NOT NULL,"
+                        + "	timestamp INTEGER NOT NULL" + ");",
+                "CREATE INDEX IF NOT EXISTS trade_trade_economy ON trade_economy(trade);",
+                "CREATE INDEX IF NOT EXISTS currency_timestamp_trade_economy ON trade_economy(currency, timestamp);"
+        );
+    }
+
+    @Override
+    public int getVersion() {
+        return 3;
+    }
+}
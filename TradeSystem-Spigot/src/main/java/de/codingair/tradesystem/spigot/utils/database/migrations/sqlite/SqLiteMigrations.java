@@ -15,7 +15,9 @@ public class SqLiteMigrations implements SqlMigrations {
     // Define all migrations in this list.
     private static final List<Migration> migrations = Arrays.asList(
             new CreateTradeLogTableMigration(),
-            new AddIndexTradeLogTableMigration());
+            new AddIndexTradeLogTableMigration(),
+            new CreateTradesTableMigration(),
+            new AddPlayerTimestampIndexTradeLogTableMigration());
 
     private SqLiteMigrations() {
     }
@@ -51,8 +53,9 @@ public class SqLiteMigrations implements SqlMigrations {
 
             for (Migration migration : validMigrations) {
                 try (Statement stmt = connect.createStatement()) {
-                    String sql = migration.getStatement();
-                    stmt.execute(sql);
+                    for (String sql : migration.getStatements()) {
+                        stmt.execute(sql);
+                    }
                     PreparedStatement migrationStatement = connect.prepareStatement("INSERT INTO migrations (version) VALUES (?);");
                     migrationStatement.setInt(1, migration.getVersion());
                     migrationStatement.execute();
@@ -5,6 +5,7 @@ import de.codingair.tradesystem.spigot.TradeSystem;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 public class SqlLiteConnection {
 
@@ -14,4 +15,47 @@ public class SqlLiteConnection {
         String url = "jdbc:sqlite:" + name + "/TradeSystem/tradelog.db";
         return DriverManager.getConnection(url);
     }
+
+    /**
+     * Opens a long-lived connection for writing. The database will be switched to write-ahead logging, so readers do not block the writer and
+     * vice versa.
+     *
+     * @return A connection which should be used by a single writer thread.
+     * @throws SQLException If the connection could not be opened.
+     */
+    public static Connection connectWriter() throws SQLException {
+        Connection connection = connect();
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA journal_mode=WAL;");
+            // safe with WAL; only the last transactions might be lost on a power loss
+            stmt.execute("PRAGMA synchronous=NORMAL;");
+            stmt.execute("PRAGMA cache_size=-8000;");
+            stmt.execute("PRAGMA busy_timeout=5000;");
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+
+        return connection;
+    }
+
+    /**
+     * @return A long-lived connection which only allows queries.
+     * @throws SQLException If the connection could not be opened.
+     */
+    public static Connection connectReader() throws SQLException {
+        Connection connection = connect();
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA query_only=1;");
+            stmt.execute("PRAGMA cache_size=-4000;");
+            stmt.execute("PRAGMA busy_timeout=5000;");
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+
+        return connection;
+    }
 }